@@ -0,0 +1,154 @@
+package hr.mi.apps.bench;
+
+import hr.mi.chess.algorithm.support.MoveOrdering;
+import hr.mi.chess.constants.ChessConstants;
+import hr.mi.chess.models.BoardState;
+import hr.mi.chess.models.MoveEncoding;
+import hr.mi.chess.movegen.LegalMoveGenerator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Terminal app comparing the cost per node of two ways of ordering moves: scoring them into a map and sorting a list
+ * of all of them (how the search used to order moves), and scoring them into a parallel <code>int[]</code> and
+ * selecting the best remaining one before each move is searched (<code>MoveOrdering</code>). The nodes are all
+ * positions two plies deep from a fixed set of positions, and each ordering is measured both for a node with a cutoff
+ * on the first move and for a node in which every move is searched.
+ * <p>
+ *     Arguments: <code>[rounds]</code>, number of measured passes over the nodes, 20 by default.
+ * </p>
+ * @author Matej Istuk
+ */
+public class MoveOrderingBenchApp {
+    private static final String[] POSITIONS = {
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "r1bqkbnr/pppp1ppp/2n5/4p3/2B1P3/5Q2/PPPP1PPP/RNB1K1NR w KQkq - 4 4",
+            "r1bq1rk1/pp2bppp/2n1pn2/3p4/2PP4/2N1PN2/PP1B1PPP/R2QKB1R w KQ - 0 8",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1"
+    };
+    private static final int WARM_UP_ROUNDS = 10;
+
+    //consumed by the measured code, so the JIT can't remove it
+    private static long sink;
+
+    /**
+     * Runs the benchmark.
+     * @param args optionally the number of measured rounds
+     */
+    public static void main(String[] args) {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+
+        List<int[]> nodes = new ArrayList<>();
+        List<Integer> lastMovedPieceIndexes = new ArrayList<>();
+        for (String position: POSITIONS) {
+            collectNodes(new BoardState(position), 2, nodes, lastMovedPieceIndexes);
+        }
+
+        for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+            for (int movesSearched: new int[]{1, ChessConstants.MAX_MOVES}) {
+                runSort(nodes, lastMovedPieceIndexes, movesSearched);
+                runSelect(nodes, lastMovedPieceIndexes, movesSearched);
+            }
+        }
+
+        System.out.printf("Nodes: %d, rounds: %d%n", nodes.size(), rounds);
+        for (int movesSearched: new int[]{1, ChessConstants.MAX_MOVES}) {
+            long sortTime = 0;
+            long selectTime = 0;
+            for (int i = 0; i < rounds; i++) {
+                sortTime += runSort(nodes, lastMovedPieceIndexes, movesSearched);
+                selectTime += runSelect(nodes, lastMovedPieceIndexes, movesSearched);
+            }
+            long nodeCount = (long) nodes.size() * rounds;
+            System.out.printf("%s: map and list sort %.1f ns/node, int[] selection %.1f ns/node, speedup %.2f%n",
+                    movesSearched == 1 ? "Cutoff on the first move" : "All moves searched",
+                    (double) sortTime / nodeCount, (double) selectTime / nodeCount, (double) sortTime / selectTime);
+        }
+        System.out.println(sink == 42 ? "" : "Done");
+    }
+
+    /**
+     * Collects the moves of every position up to the received depth.
+     * @param boardState the boardstate
+     * @param depth remaining depth
+     * @param nodes receives the moves of each position
+     * @param lastMovedPieceIndexes receives the index of the last moved piece of each position
+     */
+    private static void collectNodes(BoardState boardState, int depth, List<int[]> nodes, List<Integer> lastMovedPieceIndexes) {
+        int[] moves = new int[ChessConstants.MAX_MOVES];
+        int moveCount = LegalMoveGenerator.generateMoves(boardState, moves);
+        int[] nodeMoves = new int[moveCount];
+        System.arraycopy(moves, 0, nodeMoves, 0, moveCount);
+        nodes.add(nodeMoves);
+        lastMovedPieceIndexes.add(boardState.getLastMovedPieceIndex());
+
+        if (depth == 0) {
+            return;
+        }
+        for (int move: nodeMoves) {
+            boardState.makeMove(move);
+            collectNodes(boardState, depth - 1, nodes, lastMovedPieceIndexes);
+            boardState.unmakeLastMove();
+        }
+    }
+
+    /**
+     * Orders the moves of every node by scoring them into a map and sorting the list.
+     * @return time taken, in nanoseconds
+     */
+    private static long runSort(List<int[]> nodes, List<Integer> lastMovedPieceIndexes, int movesSearched) {
+        long start = System.nanoTime();
+        for (int n = 0; n < nodes.size(); n++) {
+            int[] nodeMoves = nodes.get(n);
+            int lastMovedPieceIndex = lastMovedPieceIndexes.get(n);
+            Map<Integer, Integer> scores = new HashMap<>();
+            List<Integer> moves = new ArrayList<>(nodeMoves.length);
+            for (int move: nodeMoves) {
+                scores.put(move, score(move, lastMovedPieceIndex));
+                moves.add(move);
+            }
+            moves.sort((first, second) -> scores.get(second) - scores.get(first));
+
+            for (int i = 0; i < moves.size() && i < movesSearched; i++) {
+                sink += moves.get(i);
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Orders the moves of every node by scoring them into an <code>int[]</code> and selecting the searched ones.
+     * @return time taken, in nanoseconds
+     */
+    private static long runSelect(List<int[]> nodes, List<Integer> lastMovedPieceIndexes, int movesSearched) {
+        int[] moves = new int[ChessConstants.MAX_MOVES];
+        int[] scores = new int[ChessConstants.MAX_MOVES];
+        long start = System.nanoTime();
+        for (int n = 0; n < nodes.size(); n++) {
+            int[] nodeMoves = nodes.get(n);
+            int lastMovedPieceIndex = lastMovedPieceIndexes.get(n);
+            int moveCount = nodeMoves.length;
+            //stands in for the move generator filling the buffer
+            System.arraycopy(nodeMoves, 0, moves, 0, moveCount);
+            for (int i = 0; i < moveCount; i++) {
+                scores[i] = score(moves[i], lastMovedPieceIndex);
+            }
+
+            for (int i = 0; i < moveCount && i < movesSearched; i++) {
+                sink += MoveOrdering.pickBest(moves, scores, i, moveCount);
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * @return score of the move, as in the quiescence search
+     */
+    private static int score(int move, int lastMovedPieceIndex) {
+        return MoveEncoding.isCapture(move) ? MoveOrdering.scoreCapture(move, lastMovedPieceIndex) : 0;
+    }
+}
@@ -0,0 +1,80 @@
+package hr.mi.apps.bench;
+
+import hr.mi.chess.algorithm.GameStateSearch;
+import hr.mi.chess.algorithm.SearchEndCondition;
+import hr.mi.chess.evaluation.SimplePlusEvaluationFunction;
+import hr.mi.chess.models.BoardState;
+import hr.mi.chess.models.Move;
+
+/**
+ * Terminal app measuring the time to depth and the number of searched nodes of the <code>GameStateSearch</code> for an
+ * increasing number of threads, on a fixed set of positions. Every run starts with an empty transposition table.
+ * <p>
+ *     Arguments: <code>depth [maxThreads]</code>, the thread count is doubled from 1 up to <code>maxThreads</code>
+ *     (all available processors by default).
+ * </p>
+ * @author Matej Istuk
+ */
+public class SearchBenchApp {
+    private static final String[] POSITIONS = {
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "r1bqkbnr/pppp1ppp/2n5/4p3/2B1P3/5Q2/PPPP1PPP/RNB1K1NR w KQkq - 4 4",
+            "r1bq1rk1/pp2bppp/2n1pn2/3p4/2PP4/2N1PN2/PP1B1PPP/R2QKB1R w KQ - 0 8",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1"
+    };
+    private static final int TT_SIZE = 1 << 22;
+
+    /**
+     * Runs the benchmark as described by the arguments.
+     * @param args depth, optionally followed by the max number of threads
+     */
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.out.println("Usage: SearchBenchApp depth [maxThreads]");
+            return;
+        }
+
+        int depth = Integer.parseInt(args[0]);
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        //warm up the JIT, otherwise the first measured run is the slowest
+        for (String position: POSITIONS) {
+            search(new GameStateSearch(new SimplePlusEvaluationFunction(), TT_SIZE), position, depth);
+        }
+
+        long singleThreadTime = -1;
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            long time = 0;
+            long nodes = 0;
+            for (String position: POSITIONS) {
+                GameStateSearch gameStateSearch = new GameStateSearch(new SimplePlusEvaluationFunction(), TT_SIZE);
+                gameStateSearch.setThreads(threads);
+                long start = System.nanoTime();
+                Move move = search(gameStateSearch, position, depth);
+                time += System.nanoTime() - start;
+                nodes += gameStateSearch.getNodesSearched();
+                System.out.printf("%s: %s, nodes: %d%n", position, move, gameStateSearch.getNodesSearched());
+            }
+
+            if (singleThreadTime == -1) {
+                singleThreadTime = time;
+            }
+            System.out.printf("Threads: %d, time to depth %d: %d ms, nodes: %d, speedup: %.2f%n%n", threads, depth, time / 1_000_000, nodes, (double) singleThreadTime / time);
+        }
+    }
+
+    /**
+     * Searches the position to the depth.
+     * @param gameStateSearch the search
+     * @param position FEN of the position
+     * @param depth depth of the search
+     * @return the best found move
+     */
+    private static Move search(GameStateSearch gameStateSearch, String position, int depth) {
+        SearchEndCondition searchEndCondition = new SearchEndCondition();
+        //the last iteration of the search is maxDepth - 1
+        searchEndCondition.setMaxDepth(depth + 1);
+        return gameStateSearch.getBestMove(new BoardState(position), searchEndCondition);
+    }
+}
@@ -0,0 +1,116 @@
+package hr.mi.apps.bench;
+
+import hr.mi.chess.algorithm.GameStateSearch;
+import hr.mi.chess.algorithm.SearchEndCondition;
+import hr.mi.chess.algorithm.support.SearchParameters;
+import hr.mi.chess.evaluation.SimplePlusEvaluationFunction;
+import hr.mi.chess.models.BoardState;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Terminal app comparing the search with a technique of <code>SearchParameters</code> turned off and on. For every
+ * depth up to the received one, each position of a fixed set is searched to that depth on a single thread, with a new
+ * search and an empty transposition table, and the summed nodes and times are printed side by side, with the number of
+ * aspiration window re-searches and of check and singular extensions of the run with the feature on.
+ * <p>
+ *     Arguments: <code>depth feature</code>, see <code>FEATURES</code> for the feature names.
+ * </p>
+ * @author Matej Istuk
+ */
+public class SearchComparisonBenchApp {
+    private static final String[] POSITIONS = {
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "r1bqkbnr/pppp1ppp/2n5/4p3/2B1P3/5Q2/PPPP1PPP/RNB1K1NR w KQkq - 4 4",
+            "r1bq1rk1/pp2bppp/2n1pn2/3p4/2PP4/2N1PN2/PP1B1PPP/R2QKB1R w KQ - 0 8",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1"
+    };
+    private static final int TT_SIZE = 1 << 22;
+    /**
+     * The features which can be compared, by name
+     */
+    private static final Map<String, BiConsumer<SearchParameters, Boolean>> FEATURES = new LinkedHashMap<>();
+
+    static {
+        FEATURES.put("pvs", SearchParameters::setPrincipalVariationSearch);
+        FEATURES.put("aspiration", SearchParameters::setAspirationWindows);
+        FEATURES.put("nullmove", SearchParameters::setNullMovePruning);
+        FEATURES.put("lmr", SearchParameters::setLateMoveReductions);
+        FEATURES.put("lmp", SearchParameters::setLateMovePruning);
+        FEATURES.put("rfp", SearchParameters::setReverseFutilityPruning);
+        FEATURES.put("futility", SearchParameters::setFutilityPruning);
+        FEATURES.put("razoring", SearchParameters::setRazoring);
+        FEATURES.put("delta", SearchParameters::setDeltaPruning);
+        FEATURES.put("qtt", SearchParameters::setQuiescenceTranspositionTable);
+        FEATURES.put("checkext", SearchParameters::setCheckExtensions);
+        FEATURES.put("singular", SearchParameters::setSingularExtensions);
+        FEATURES.put("mdp", SearchParameters::setMateDistancePruning);
+    }
+
+    /**
+     * Runs the benchmark as described by the arguments.
+     * @param args depth and the name of the feature
+     */
+    public static void main(String[] args) {
+        if (args.length < 2 || !FEATURES.containsKey(args[1])) {
+            System.out.println("Usage: SearchComparisonBenchApp depth feature");
+            System.out.println("Features: " + String.join(", ", FEATURES.keySet()));
+            return;
+        }
+
+        int maxDepth = Integer.parseInt(args[0]);
+        BiConsumer<SearchParameters, Boolean> feature = FEATURES.get(args[1]);
+
+        //warm up the JIT, otherwise the first measured runs are the slowest
+        for (String position: POSITIONS) {
+            search(position, maxDepth - 1, feature, false);
+            search(position, maxDepth - 1, feature, true);
+        }
+
+        System.out.printf("%5s %14s %10s %14s %10s %8s %12s %10s %12s%n", "depth", "nodes off", "ms off", "nodes on",
+                "ms on", "nodes", "re-searches", "check ext", "singular ext");
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            long[] off = new long[5];
+            long[] on = new long[5];
+            for (String position: POSITIONS) {
+                add(off, search(position, depth, feature, false));
+                add(on, search(position, depth, feature, true));
+            }
+            System.out.printf("%5d %14d %10d %14d %10d %7.1f%% %12d %10d %12d%n", depth, off[0], off[1] / 1_000_000, on[0],
+                    on[1] / 1_000_000, 100.0 * (on[0] - off[0]) / off[0], on[2], on[3], on[4]);
+        }
+    }
+
+    /**
+     * Searches the position to the depth with a new search.
+     * @param position FEN of the position
+     * @param depth depth of the search
+     * @param feature setter of the compared feature
+     * @param enabled whether the feature is turned on
+     * @return number of searched nodes, the time taken in nanoseconds, the number of aspiration window re-searches and
+     * the numbers of check and singular extensions
+     */
+    private static long[] search(String position, int depth, BiConsumer<SearchParameters, Boolean> feature, boolean enabled) {
+        GameStateSearch gameStateSearch = new GameStateSearch(new SimplePlusEvaluationFunction(), TT_SIZE);
+        feature.accept(gameStateSearch.getSearchParameters(), enabled);
+        SearchEndCondition searchEndCondition = new SearchEndCondition();
+        //the last iteration of the search is maxDepth - 1
+        searchEndCondition.setMaxDepth(depth + 1);
+
+        long start = System.nanoTime();
+        gameStateSearch.getBestMove(new BoardState(position), searchEndCondition);
+        long time = System.nanoTime() - start;
+        return new long[]{gameStateSearch.getNodesSearched(), time,
+                gameStateSearch.getAspirationFailLows() + gameStateSearch.getAspirationFailHighs(),
+                gameStateSearch.getCheckExtensions(), gameStateSearch.getSingularExtensions()};
+    }
+
+    private static void add(long[] sum, long[] result) {
+        for (int i = 0; i < sum.length; i++) {
+            sum[i] += result[i];
+        }
+    }
+}
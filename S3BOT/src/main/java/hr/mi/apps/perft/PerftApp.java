@@ -0,0 +1,56 @@
+package hr.mi.apps.perft;
+
+import hr.mi.chess.algorithm.Perft;
+import hr.mi.chess.algorithm.support.PerftTable;
+import hr.mi.chess.constants.ChessBoardConstants;
+import hr.mi.chess.models.BoardState;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Terminal app running a multi-threaded perft. Prints the divide (number of states after each root move) and the
+ * speed of the move generator in nodes per second.
+ * <p>
+ *     Arguments: <code>depth [threads] [hashMb] [fen]</code>, by default all available processors are used on the
+ *     starting position, without a table of subtree counts (<code>hashMb</code> of 0).
+ * </p>
+ * @author Matej Istuk
+ */
+public class PerftApp {
+
+    /**
+     * Runs the perft as described by the arguments.
+     * @param args depth, optionally followed by the number of threads, the size of the table of subtree counts in
+     *             megabytes and the FEN of the position
+     */
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.out.println("Usage: PerftApp depth [threads] [hashMb] [fen]");
+            return;
+        }
+
+        int depth = Integer.parseInt(args[0]);
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int hashMb = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+        String fen = args.length > 3 ? String.join(" ", Arrays.copyOfRange(args, 3, args.length)) : ChessBoardConstants.STARTING_POSITION_FEN;
+        BoardState boardState = new BoardState(fen);
+        PerftTable table = hashMb > 0 ? new PerftTable(hashMb) : null;
+
+        long start = System.nanoTime();
+        Map<String, Long> divide = Perft.divide(boardState, depth, threads, table);
+        long time = System.nanoTime() - start;
+
+        long nodes = 0;
+        for (Map.Entry<String, Long> entry: divide.entrySet()) {
+            System.out.printf("%s: %d%n", entry.getKey(), entry.getValue());
+            nodes += entry.getValue();
+        }
+
+        System.out.printf("%nNodes searched: %d%n", nodes);
+        System.out.printf("Threads: %d%n", threads);
+        System.out.printf("Hash: %d MB%n", hashMb);
+        System.out.printf("Time: %d ms%n", time / 1_000_000);
+        System.out.printf("NPS: %d%n", (long) (nodes / (time / 1e9)));
+    }
+}
@@ -4,15 +4,23 @@ import hr.mi.apps.tchess.ChessTerminalApp;
 import hr.mi.apps.uci.commands.support.UciTask;
 import hr.mi.apps.uci.support.Environment;
 import hr.mi.apps.uci.support.SearchManager;
+import hr.mi.chess.algorithm.support.Score;
 import hr.mi.chess.models.BoardState;
 import hr.mi.chess.models.Move;
 
 /**
- * Starts calculating on the current position set up with the "position" command, prints the best move found. Currently
- * doesn't receive any arguments. A long task.
+ * go [depth x | nodes x | mate x | movetime x | infinite]
+ * Starts calculating on the current position set up with the "position" command, prints the score and the best move
+ * found. Only the depth, nodes, mate, movetime and infinite arguments are supported, the rest are ignored. Without any
+ * of them, the search takes <code>DEFAULT_MOVE_TIME</code>. With "mate x", the search looks for a mate in x moves and
+ * ends as soon as it finds one. A long task.
  * @author Matej Istuk
  */
 public class GoFunc extends UciTask {
+    /**
+     * Time of a search with no limits, in milliseconds
+     */
+    private static final long DEFAULT_MOVE_TIME = 10000;
 
     public GoFunc(String[] arguments, Environment environment) {
         super(arguments, environment, false);
@@ -26,7 +34,15 @@ public class GoFunc extends UciTask {
 
         SearchManager searchManager = environment.getSearchManager();
 
-        searchManager.setMoveTime(10000);
+        searchManager.resetOptions();
+        try {
+            if (!setLimits(searchManager)) {
+                searchManager.setMoveTime(DEFAULT_MOVE_TIME);
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            return new String[] {"Invalid go arguments."};
+        }
+
         long sTime = System.currentTimeMillis();
         environment.setEngineBusy(true);
         Move bestmove = searchManager.findBestMove(environment.getBoardstate());
@@ -35,8 +51,49 @@ public class GoFunc extends UciTask {
 
         System.out.println(System.currentTimeMillis() - sTime);
         if (bestmove != null)
-            return new String[] {"bestmove " + bestmove.toString()};
+            return new String[] {"info score " + scoreToUci(searchManager.getScore()), "bestmove " + bestmove.toString()};
         else
             return new String[]{"No move"};
     }
+
+    /**
+     * Sets the limits received as arguments to the search manager.
+     * @param searchManager the search manager
+     * @return true if the search is limited by any of the arguments, or is infinite
+     * @throws NumberFormatException if the value of a limit isn't a number
+     * @throws ArrayIndexOutOfBoundsException if the value of the last limit is missing
+     */
+    private boolean setLimits(SearchManager searchManager) {
+        boolean limited = false;
+        for (int i = 0; i < arguments.length; i++) {
+            switch (arguments[i]) {
+                //the last iteration of the search is one less than the max depth
+                case "depth" -> searchManager.setDepth(Integer.parseInt(arguments[++i]) + 1);
+                case "nodes" -> searchManager.setNodes(Long.parseLong(arguments[++i]));
+                case "mate" -> searchManager.setMate(Integer.parseInt(arguments[++i]));
+                case "movetime" -> searchManager.setMoveTime(Long.parseLong(arguments[++i]));
+                case "infinite" -> searchManager.setInfinite(true);
+                default -> {
+                    continue;
+                }
+            }
+            limited = true;
+        }
+        return limited;
+    }
+
+    /**
+     * Converts a score of the search to the UCI score format.
+     * @param score score, see <code>Score</code>
+     * @return "cp x" for an evaluation, "mate x" for a mate in x moves, negative if the side to move is getting mated
+     */
+    private static String scoreToUci(int score) {
+        if (score >= Score.MATE_BOUND) {
+            return "mate " + (Score.MATE - score + 1) / 2;
+        }
+        if (score <= -Score.MATE_BOUND) {
+            return "mate " + -(Score.MATE + score) / 2;
+        }
+        return "cp " + score;
+    }
 }
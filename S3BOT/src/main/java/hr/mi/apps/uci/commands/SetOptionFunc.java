@@ -4,11 +4,13 @@ import hr.mi.apps.uci.commands.support.UciTask;
 import hr.mi.apps.uci.support.Environment;
 
 /**
+ * setoption name [value ]
  * this is sent to the engine when the user wants to change the internal parameters
- * of the engine. Not implemented.
+ * of the engine. Only the "Threads" option is supported.
  * @author Matej Istuk
  */
 public class SetOptionFunc extends UciTask {
+    private static final int MAX_THREADS = 256;
 
     public SetOptionFunc(String[] arguments, Environment environment) {
         super(arguments, environment, false);
@@ -16,6 +18,24 @@ public class SetOptionFunc extends UciTask {
 
     @Override
     public String[] call() throws Exception {
-        return new String[0];
+        //setoption name <id> value <x>, the name could have more words, but none of the supported ones do
+        if (arguments.length < 4 || !arguments[0].equals("name") || !arguments[2].equals("value")) {
+            return new String[0];
+        }
+
+        if (arguments[1].equalsIgnoreCase("Threads")) {
+            if (environment.isEngineBusy()) {
+                return new String[] {"Threads can't be changed while searching."};
+            }
+            try {
+                int threads = Integer.parseInt(arguments[3]);
+                environment.getSearchManager().setThreads(Math.max(1, Math.min(MAX_THREADS, threads)));
+            } catch (NumberFormatException e) {
+                return new String[] {String.format("Invalid Threads value: '%s'.", arguments[3])};
+            }
+            return new String[0];
+        }
+
+        return new String[] {String.format("Unknown option: '%s'.", arguments[1])};
     }
 }
@@ -21,6 +21,6 @@ public class UciFunc extends UciTask {
 
     @Override
     public String[] call() throws Exception {
-        return new String[] {"id name S3BOT 0.1", "id author Matej Istuk"};
+        return new String[] {"id name S3BOT 0.1", "id author Matej Istuk", "option name Threads type spin default 1 min 1 max 256"};
     }
 }
@@ -6,7 +6,8 @@ import hr.mi.apps.uci.support.Environment;
 /**
  * This command is sent to the engine when the next search (started with "position" and "go") will be from
  * a different game. This can be a new game the engine should play or a new game it should analyse but
- * also the next position from a testsuite with positions only.
+ * also the next position from a testsuite with positions only. Clears the transposition table and the move ordering
+ * tables of the search, so the next search doesn't depend on the previous ones.
  * @author Matej Istuk
  */
 public class UciNewGameFunc extends UciTask {
@@ -17,6 +18,10 @@ public class UciNewGameFunc extends UciTask {
 
     @Override
     public String[] call() throws Exception {
+        if (environment.isEngineBusy()) {
+            return new String[] {"New game can't be started while searching."};
+        }
+        environment.getSearchManager().newGame();
         return new String[0];
     }
 }
@@ -63,13 +63,41 @@ public class SearchManager {
     }
 
     /**
-     * Sets the <code>SearchEndCondition</code> object to the set options. Only supports max depth, max nodes and
-     * max time.
+     * Resets all options of the search to their defaults, so the options of one "go" command don't carry over to the
+     * next one.
+     */
+    public void resetOptions() {
+        searchMoves = new LinkedList<>();
+        ponder = false;
+        wTime = -1;
+        bTime = -1;
+        wInc = -1;
+        bInc = -1;
+        movesToGo = -1;
+        depth = Integer.MAX_VALUE;
+        nodes = Long.MAX_VALUE;
+        mate = Integer.MAX_VALUE;
+        moveTime = Long.MAX_VALUE;
+        infinite = false;
+    }
+
+    /**
+     * @return value of the best move of the last search, from the perspective of the side to move, see
+     * <code>Score</code>
+     */
+    public int getScore() {
+        return gameStateSearch.getScore();
+    }
+
+    /**
+     * Sets the <code>SearchEndCondition</code> object to the set options. Only supports max depth, max nodes, max time
+     * and mate.
      */
     private void setSearchEndCondition() {
         searchEndCondition.setMaxDepth(depth);
         searchEndCondition.setMaxNodes(nodes);
         searchEndCondition.setMaxTime(moveTime);
+        searchEndCondition.setMate(mate);
     }
 
     public void setSearchMoves(List<Move> searchMoves) {
@@ -119,4 +147,19 @@ public class SearchManager {
     public void setInfinite(boolean infinite) {
         this.infinite = infinite;
     }
+
+    /**
+     * Prepares the search for a new game, everything learned in earlier searches is forgotten.
+     */
+    public void newGame() {
+        gameStateSearch.newGame();
+    }
+
+    /**
+     * Sets the number of threads the search runs on.
+     * @param threads number of threads, at least 1
+     */
+    public void setThreads(int threads) {
+        gameStateSearch.setThreads(threads);
+    }
 }
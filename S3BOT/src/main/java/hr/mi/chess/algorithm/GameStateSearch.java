@@ -1,49 +1,96 @@
 package hr.mi.chess.algorithm;
 
-import hr.mi.chess.algorithm.support.MVV_LVA;
+import hr.mi.chess.algorithm.support.Score;
 import hr.mi.chess.algorithm.support.SearchInfo;
+import hr.mi.chess.algorithm.support.SearchParameters;
+import hr.mi.chess.algorithm.support.SharedSearchState;
 import hr.mi.chess.constants.ChessConstants;
 import hr.mi.chess.evaluation.EvaluationFunction;
 import hr.mi.chess.models.BoardState;
 import hr.mi.chess.models.Move;
+import hr.mi.chess.models.MoveEncoding;
 import hr.mi.chess.movegen.LegalMoveGenerator;
-import hr.mi.chess.movegen.helpers.MoveUtil;
-
-import java.util.*;
 
 /**
  * Class which preforms the search of the game tree. Uses an iterative depth first search and the negamax algorithm
  * to find the best move in accordance with the limitations put in place by the <code>SearchEndCondition</code>.
+ * <p>
+ *     The search can run on multiple threads by the <a href="https://www.chessprogramming.org/Lazy_SMP">Lazy SMP</a>
+ *     scheme. Helper threads run the same iterative deepening on their own copy of the board-state, every other one a
+ *     depth ahead, and share only the transposition table with the main thread, so they mostly help by filling it.
+ *     The main thread decides when the search ends and reports the result. What the threads share is kept in the
+ *     <code>SharedSearchState</code>, everything else in their own <code>SearchWorker</code>.
+ * </p>
+ * <p>
+ *     From <code>ASPIRATION_MIN_DEPTH</code> on, the main thread starts every iteration with an aspiration window around
+ *     the score of the previous one. If the score falls outside of it, the window is widened on that side, twice as
+ *     much each time, and the iteration is searched again. The number of such re-searches of the last search is
+ *     available through <code>getAspirationFailLows</code> and <code>getAspirationFailHighs</code>.
+ * </p>
+ * <p>
+ *     Lines can be extended past the depth of the iteration by check and singular extensions (see
+ *     <code>SearchWorker</code>), how many moves were extended in the last search is available through
+ *     <code>getCheckExtensions</code> and <code>getSingularExtensions</code>.
+ * </p>
+ * <p>
+ *     If the <code>SearchEndCondition</code> asks for a mate in n moves, the iterations stop at the 2n - 1 plies such a
+ *     mate needs, and the search ends as soon as one of them proves a mate at most that long. The search doesn't prune
+ *     or reduce any moves then, so the mate it finds is forced.
+ * </p>
  * @author Matej Istuk
  */
 public class GameStateSearch {
+    /**
+     * First iteration which uses an aspiration window, the scores of the shallower ones jump around too much
+     */
+    private static final int ASPIRATION_MIN_DEPTH = 4;
     private final EvaluationFunction evaluationFunction;
-    private final SearchInfo searchInfo;
-    //private static final MoveComparator moveComparator = new MoveComparator();
-    private long statesSearched;
-    private int quiescenceStatesSearched;
-    private long searchStartTime;
-    private SearchEndCondition searchEndCondition;
-    private int searchStartMove;
-    private long ttHit;
+    private final SharedSearchState sharedState;
+    //the main thread uses the first worker
+    private SearchWorker[] workers;
+    private int aspirationFailLows;
+    private int aspirationFailHighs;
+    private int score;
 
     /**
-     * The constructor, sets the transposition table size to 33554432 entries.
+     * The constructor, sets the transposition table size to 8388608 entries (128 MB).
      * @param evaluationFunction the evaluation function which the search will use
      */
     public GameStateSearch(EvaluationFunction evaluationFunction) {
-        this(evaluationFunction, 33554432);
+        this(evaluationFunction, 8388608);
     }
 
     /**
      * The constructor.
-     * @param evaluationFunction the evaluation function which the search will use
-     * @param ttSize size of the transposition table (if the size isn't a power of two, it will be rounded down to the
-     *               highest power of two less than the received number)
+     * @param evaluationFunction the evaluation function which the search will use, shared by all threads
+     * @param ttSize number of transposition table entries, each takes 16 bytes (if the size isn't a power of two, it will
+     *               be rounded down to the highest power of two less than the received number)
      */
     public GameStateSearch(EvaluationFunction evaluationFunction, int ttSize) {
         this.evaluationFunction = evaluationFunction;
-        this.searchInfo = new SearchInfo(ttSize);
+        this.sharedState = new SharedSearchState(ttSize);
+        setThreads(1);
+    }
+
+    /**
+     * Sets the number of threads the search runs on, the main one included.
+     * @param threads number of threads, at least 1
+     */
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("The search needs at least one thread.");
+        }
+        workers = new SearchWorker[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new SearchWorker(sharedState, evaluationFunction);
+        }
+    }
+
+    /**
+     * @return number of threads the search runs on, the main one included
+     */
+    public int getThreads() {
+        return workers.length;
     }
 
     /**
@@ -54,307 +101,183 @@ public class GameStateSearch {
      * @return the best found move
      */
     public Move getBestMove(BoardState boardState, SearchEndCondition searchEndCondition){
+        Thread[] helpers = new Thread[workers.length - 1];
         try {
 
-            this.searchStartMove = boardState.getFullMoves();
-            searchInfo.clearKillerMoves();
-            this.searchEndCondition = searchEndCondition;
-            this.searchStartTime = System.currentTimeMillis();
-            evaluationFunction.setPerspective(boardState.getActiveColour());
+            sharedState.startSearch(searchEndCondition);
+            aspirationFailLows = 0;
+            aspirationFailHighs = 0;
+            score = 0;
 
-            List<Move> moves = LegalMoveGenerator.generateMoves(boardState);
-            if (moves.isEmpty()) {
+            int[] rootMoves = new int[ChessConstants.MAX_MOVES];
+            int rootMoveCount = LegalMoveGenerator.generateMoves(boardState, rootMoves);
+            if (rootMoveCount == 0) {
                 return null;
             }
 
-            Move bestMove = moves.get(0);
+            for (SearchWorker worker : workers) {
+                worker.newSearch();
+            }
+
+            for (int i = 0; i < helpers.length; i++) {
+                SearchWorker helper = workers[i + 1];
+                BoardState helperBoardState = new BoardState(boardState);
+                //every other helper searches a depth ahead, so the threads don't all search the same tree
+                int startDepth = 1 + (i + 1) % 2;
+                helpers[i] = new Thread(() -> helper.searchAsHelper(helperBoardState, startDepth));
+                helpers[i].start();
+            }
+
+            SearchWorker mainWorker = workers[0];
+            SearchParameters searchParameters = sharedState.getSearchParameters();
+            int bestMove = rootMoves[0];
             int maxDepth = 0;
-            for (int i = 1; i < searchEndCondition.getMaxDepth(); i++) {
-                ttHit = 0;
-                statesSearched = 0;
-                quiescenceStatesSearched = 0;
-                MoveValuePair mvp = getBestMoveRec(boardState, 0, i, Integer.MIN_VALUE, Integer.MAX_VALUE, 1);
-                Move bestMoveCandidate = mvp.move;
-                //System.out.println(i + ": " + bestMoveCandidate);
-                if ((statesSearched + quiescenceStatesSearched) >= searchEndCondition.getMaxNodes()) {
-                    break;
+            //a mate in n moves is delivered on ply 2n - 1, deeper iterations can't find a mate short enough
+            int iterations = searchEndCondition.getMaxDepth();
+            int mateLength = 0;
+            if (searchEndCondition.isMateSearch()) {
+                mateLength = 2 * Math.max(1, Math.min(searchEndCondition.getMate(), SearchInfo.MAX_PLY / 2)) - 1;
+                iterations = Math.min(iterations, mateLength + 1);
+            }
+            for (int i = 1; i < iterations; i++) {
+                int window = searchParameters.getAspirationWindow();
+                int alpha = -Score.INFINITY;
+                int beta = Score.INFINITY;
+                //a mate score is exact, it doesn't move by small steps like the evaluation
+                if (searchParameters.isAspirationWindows() && i >= ASPIRATION_MIN_DEPTH && !Score.isMate(score)) {
+                    alpha = Math.max(score - window, -Score.INFINITY);
+                    beta = Math.min(score + window, Score.INFINITY);
                 }
 
-                if ((System.currentTimeMillis() - searchStartTime) > searchEndCondition.getMaxTime() || searchEndCondition.isManualStop()) {
+                int value;
+                while (true) {
+                    value = mainWorker.searchRoot(boardState, i, alpha, beta);
+                    if (sharedState.isStopped()) {
+                        break;
+                    }
+                    if (value <= alpha) {
+                        aspirationFailLows++;
+                        alpha = Math.max(value - window, -Score.INFINITY);
+                    } else if (value >= beta) {
+                        aspirationFailHighs++;
+                        beta = Math.min(value + window, Score.INFINITY);
+                    } else {
+                        break;
+                    }
+                    window *= 2;
+                }
+                int bestMoveCandidate = mainWorker.getRootBestMove();
+                //System.out.println(i + ": " + bestMoveCandidate);
+                if (sharedState.checkLimits()) {
                     break;
                 }
-                if (bestMoveCandidate != null) {
+
+                if (bestMoveCandidate != MoveEncoding.NO_MOVE) {
                     bestMove = bestMoveCandidate;
                     maxDepth = i;
-                    //System.out.printf("TtHit at %d: %d%n", i, ttHit);
+                    score = value;
+                }
+                //the mate is proven, deeper iterations would only find it again
+                if (searchEndCondition.isMateSearch() && score >= Score.mateIn(mateLength)) {
+                    break;
                 }
             }
-            System.out.println(System.currentTimeMillis() - searchStartTime + " " + maxDepth + " " + boardState.getFEN());
-            return bestMove;
+            System.out.println(System.currentTimeMillis() - sharedState.getSearchStartTime() + " " + maxDepth + " " + boardState.getFEN());
+            return new Move(bestMove);
         } catch (Exception e) {
             e.printStackTrace();
+        } finally {
+            sharedState.stop();
+            for (Thread helper : helpers) {
+                if (helper != null) {
+                    joinUninterruptibly(helper);
+                }
+            }
         }
         return null;
     }
 
-
     /**
-     * Recursive function which navigates the game tree depth first. Implementation of the negamax algorithm with
-     * alpha-beta pruning and transposition tables
-     * @param boardState the boardstate, central object of the search
-     * @param ply current depth of search
-     * @param maxSearchDepth max search depth
-     * @param alpha alpha used in alpha beta pruning
-     * @param beta beta used in alpha beta pruning
-     * @param colour represents if the level of search is even or odd (necessary for negamax)
-     * @return the best move for the node and the value of the searched node
+     * Prepares the search for a new game, so its results don't depend on what was searched before. The transposition
+     * table and the move ordering tables of all threads are cleared. Must not be called during a search.
      */
-    private MoveValuePair getBestMoveRec(BoardState boardState, int ply, int maxSearchDepth, double alpha, double beta, int colour){
-
-        //search termination conditions
-        if (searchEndCondition.isManualStop()){
-            return new MoveValuePair(null, 0);
-        }
-
-        if ((statesSearched + quiescenceStatesSearched) >= searchEndCondition.getMaxNodes()){
-            return new MoveValuePair(null, 0);
-        }
-
-        if (((statesSearched + quiescenceStatesSearched) & 1023) == 0){
-            if ((System.currentTimeMillis() - searchStartTime) > searchEndCondition.getMaxTime() || searchEndCondition.isManualStop()){
-                return new MoveValuePair(null, 0);
-            }
-        }
-
-        //check if the boardstate is a draw (by the 50 move rule or by repetition, draw by no moves is checked later on)
-        if (boardState.isDraw()) {
-            return new MoveValuePair(null, 0);
-        }
-
-        //Necessary for transposition tables, since alpha changes through the search
-        double originalAlpha = alpha;
-
-        //The most important search end condition, if this is met, the boardstate is evaluated by a further quiescence
-        //search. Counters the horizon effect.
-        if (ply >= maxSearchDepth) {
-            return new MoveValuePair(null, getQuiescenceEvaluation(boardState, ply, alpha, beta, colour));
-        }
-
-
-        List<Move> moves = LegalMoveGenerator.generateMoves(boardState);
-
-        if (moves.size() == 0) {
-            return new MoveValuePair(null, -evaluateNoMoveBoard(boardState, ply));
-        }
-
-
-        //Check if the current boardstate has appeared before, and if it is ok to use (searched to a greater or equal
-        //depth...). If so, use it.
-        SearchInfo.TTEntry ttEntry = searchInfo.ttGet(boardState.getZobristHash());
-
-        if (ttEntry != null && ttEntry.zobristHash() == boardState.getZobristHash() && ttEntry.creationMove() == this.searchStartMove && ttEntry.depth() >= (maxSearchDepth - ply) && moves.contains(ttEntry.bestMove())){
-            ttHit++;
-            //Since the algorithm is using alpha beta pruning, we don't always know the exact value of the node, only
-            //the upper or lower bound.
-            switch (ttEntry.type()) {
-                case SearchInfo.EXACT -> {
-                    return new MoveValuePair(ttEntry.bestMove(), ttEntry.value());
-                }
-                case SearchInfo.LOWER_BOUND -> {
-                    alpha = Math.max(alpha, ttEntry.value());
-                }
-                case SearchInfo.UPPER_BOUND -> {
-                    beta = Math.min(beta, ttEntry.value());
-                }
-            }
-
-            if (alpha >= beta) {
-                return new MoveValuePair(ttEntry.bestMove(), ttEntry.value());
-            }
+    public void newGame() {
+        sharedState.getTranspositionTable().clear();
+        for (SearchWorker worker : workers) {
+            worker.clear();
         }
-
-
-        statesSearched++;
-        //Orders moves to help with cutoffs
-        orderMoves(moves, ply, boardState.getLastMovedPieceIndex(), ttEntry != null ? ttEntry.bestMove() : null);
-        double value = -Double.MAX_VALUE;
-        Move bestMove = null;
-
-        //search through possible moves to find the best
-        for (Move move: moves){
-            boardState.makeMove(move);
-            MoveValuePair result = this.getBestMoveRec(boardState, ply + 1, maxSearchDepth, -beta, -alpha, -colour);
-            if (-result.value > value){
-                value = -result.value;
-                bestMove = move;
-            }
-            boardState.unmakeLastMove();
-            alpha = Math.max(alpha, value);
-            if (alpha >= beta){
-                if (!move.isCapture()){
-                    searchInfo.addKillerMove(ply, move);
-                }
-                break;
-            }
-        }
-
-        //save the search results to the transposition table
-        int ttType = SearchInfo.EXACT;
-
-        if (value <= originalAlpha){
-            ttType = SearchInfo.UPPER_BOUND;
-        } else if (value >= beta){
-            ttType = SearchInfo.LOWER_BOUND;
-        }
-
-        SearchInfo.TTEntry newEntry = new SearchInfo.TTEntry(boardState.getZobristHash(), value, ttType, bestMove, maxSearchDepth - ply, this.searchStartMove);
-        searchInfo.ttStore(newEntry);
-
-        return new MoveValuePair(bestMove, value);
     }
 
     /**
-     * Searches the boardstate recursively to stabilize it (make all possible trades, to get a more accurate evaluation
-     * of the state). Counter to the horizon effect.
-     * @param boardState the boardstate, central object of the search
-     * @param ply current depth of search
-     * @param alpha alpha used in alpha beta pruning
-     * @param beta beta used in alpha beta pruning
-     * @param colour represents if the level of search is even or odd (necessary for negamax)
-     * @return the value of the search
+     * @return parameters of the search techniques, should only be changed between searches
      */
-    private double getQuiescenceEvaluation(BoardState boardState, int ply, double alpha, double beta, int colour) {
-        quiescenceStatesSearched++;
-        //theoretical lowest limit, unless the game is in Zugzwang. We're assuming that at least one capture leads to a
-        //better position
-        double standingPat = colour*evaluationFunction.evaluate(boardState);
-
-        if (standingPat >= beta) {
-            return beta;
-        }
-
-        if (alpha < standingPat) {
-            alpha = standingPat;
-        }
-
-        List<Move> moves = LegalMoveGenerator.generateMoves(boardState);
-
-        if (moves.isEmpty()) {
-            return -evaluateNoMoveBoard(boardState, ply);
-        }
-
-        //remove non captures
-        moves.removeIf(m -> !m.isCapture());
-        orderMoves(moves, -1, boardState.getLastMovedPieceIndex(), null);
-        double value;
-
-        //check moves
-        for (Move move: moves) {
-            boardState.makeMove(move);
-            value = -this.getQuiescenceEvaluation(boardState, ply + 1, -beta, -alpha, -colour);
-            boardState.unmakeLastMove();
-
-            if (value >= beta){
-                return beta;
-            }
-
-            if (value > alpha) {
-                alpha = value;
-            }
-        }
-
-        return alpha;
+    public SearchParameters getSearchParameters() {
+        return sharedState.getSearchParameters();
     }
 
     /**
-     * Orders the received moves according to various heuristics, see <code>scoreMove</code> for more.
-     * @param moves the move list to be ordered.
-     * @param ply current depth of search
-     * @param lastMovedPieceIndex index of the tile to which the last moved piece was moved to
-     * @param ttMove move from the transposition table, can be null
+     * @return number of iterations of the last search which were searched again because the score was below the
+     * aspiration window
      */
-    private void orderMoves(List<Move> moves, int ply, int lastMovedPieceIndex, Move ttMove) {
-        Map<Move, Integer> scores = new HashMap<>();
-
-        moves.forEach(move -> scores.put(move, scoreMove(move, ply, lastMovedPieceIndex, ttMove)));
-        moves.sort(new MoveComparator(scores));
+    public int getAspirationFailLows() {
+        return aspirationFailLows;
     }
 
     /**
-     * Gives a score to the move, used in move ordering. Applies the following heuristics for scoring:
-     * <ul>
-     *     <li><a href="https://www.chessprogramming.org/Killer_Move">Killer Moves</a></li>
-     *     <li><a href="https://www.chessprogramming.org/MVV-LVA">MVV_LVA</a></li>
-     *     Move stored in the transposition table
-     * </ul>
-     * @param move move being scored
-     * @param ply depth of search in which the move was found
-     * @param lastMovedPieceIndex index of the tile to which the last moved piece was moved to
-     * @param ttMove move from the transposition table, can be null
-     * @return move score
+     * @return number of iterations of the last search which were searched again because the score was above the
+     * aspiration window
      */
-    private int scoreMove(Move move, int ply, int lastMovedPieceIndex, Move ttMove){
-        int score = 0;
-        if (ply != -1 && searchInfo.checkIfKiller(ply, move)){
-            score += 50;
-        }
-
-        if (Objects.equals(move, ttMove)){
-            score += 1000;
-        }
-
-        if (move.isCapture()){
-            score += MVV_LVA.MVV_LVA_TABLE[move.getCapturedPieceIndex() % 6][move.getPiece() % 6];
-
-            if (move.getTo() == lastMovedPieceIndex)
-                score += 1001;
-        }
-        return score;
+    public int getAspirationFailHighs() {
+        return aspirationFailHighs;
     }
 
     /**
-     * Used to evaluate a board with no legal moves. Returns (Integer.MAX_VALUE / 2) - ply for a mate, and 0 for a
-     * draw
-     * @param boardState boardstate being evaluated
-     * @param ply depth at which the no move board was found
-     * @return score.
+     * @return value of the best move of the last search, from the perspective of the side to move, see
+     * <code>Score</code>
      */
-    private double evaluateNoMoveBoard(BoardState boardState, int ply) {
-        if ((MoveUtil.getKingDangerSquares(boardState.getBitboards(), boardState.getActiveColour()) & boardState.getBitboards()[(boardState.getActiveColour() == ChessConstants.WHITE) ? 5 : 11]) != 0L){
-            return ((double) Integer.MAX_VALUE / 2) - ply;
-        }
-        return 0;
+    public int getScore() {
+        return score;
     }
 
     /**
-     * Pair of a move and a value, result of the search algorithm
-     * @param move
-     * @param value
+     * @return number of nodes searched by all threads in the last search
      */
-    private  record MoveValuePair (Move move, double value) {}
+    public long getNodesSearched() {
+        return sharedState.getNodes();
+    }
 
     /**
-     * Comparator for a Move, sorts moves on heuristic values described in the method <code>scoreMove</code>
+     * @return number of moves giving check which were searched a ply deeper by all threads in the last search
      */
-    private static class MoveComparator implements Comparator<Move> {
-
-        private final Map<Move, Integer> scores;
-
-        /**
-         * @param scores Map of precalculated moves and heuristic values
-         */
-        public MoveComparator(Map<Move, Integer> scores) {
-            this.scores = scores;
+    public long getCheckExtensions() {
+        long checkExtensions = 0;
+        for (SearchWorker worker : workers) {
+            checkExtensions += worker.getCheckExtensions();
         }
+        return checkExtensions;
+    }
 
-        @Override
-        public int compare(Move m1, Move m2) {
-            return scores.get(m2) - scores.get(m1);
+    /**
+     * @return number of singular moves which were searched a ply deeper by all threads in the last search
+     */
+    public long getSingularExtensions() {
+        long singularExtensions = 0;
+        for (SearchWorker worker : workers) {
+            singularExtensions += worker.getSingularExtensions();
         }
+        return singularExtensions;
+    }
 
-        @Override
-        public boolean equals(Object obj) {
-            return false;
+    /**
+     * Waits for the thread to finish.
+     * @param thread the thread
+     */
+    private static void joinUninterruptibly(Thread thread) {
+        while (true) {
+            try {
+                thread.join();
+                return;
+            } catch (InterruptedException ignored) {}
         }
     }
 }
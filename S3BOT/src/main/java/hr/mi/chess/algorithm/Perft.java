@@ -1,17 +1,32 @@
 package hr.mi.chess.algorithm;
 
+import hr.mi.chess.algorithm.support.PerftTable;
+import hr.mi.chess.constants.ChessConstants;
 import hr.mi.chess.models.BoardState;
 import hr.mi.chess.models.Move;
 import hr.mi.chess.movegen.LegalMoveGenerator;
 
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 /**
  * Class preforming performance test, move path enumeration. Used for debugging the move generator, counts possible
- * chess board states.
+ * chess board states. Can also split the tree over multiple threads, which makes it a multi-core throughput benchmark
+ * of the move generator, and reuse the counts of transposed subtrees from a <code>PerftTable</code>, which makes
+ * deep runs feasible.
  * @author Matej Istuk
  */
 public class Perft {
+    /**
+     * Remaining depth from which the subtrees of the second ply are also split into separate tasks, smaller subtrees
+     * aren't worth the copying of the boardstate.
+     */
+    private static final int SECOND_PLY_SPLIT_DEPTH = 4;
 
     /**
      * Searches the game tree fully to the requested depth and returns how many states it found.
@@ -20,21 +35,187 @@ public class Perft {
      * @return number of found states
      */
     public static long countMovesAtDepth(BoardState boardState, int depth){
-        List<Move> moves = LegalMoveGenerator.generateMoves(boardState);
+        return countMovesAtDepth(boardState, depth, (PerftTable) null);
+    }
+
+    /**
+     * Searches the game tree fully to the requested depth, reusing the counts of subtrees stored in the table, and
+     * returns how many states it found.
+     * @param boardState the boardstate
+     * @param depth depth to which to search
+     * @param table table of subtree counts, can be shared with other searches, null to count every subtree
+     * @return number of found states
+     */
+    public static long countMovesAtDepth(BoardState boardState, int depth, PerftTable table){
+        //one move buffer per remaining depth, so generation doesn't allocate during the walk
+        int[][] moveBuffers = new int[depth][ChessConstants.MAX_MOVES];
+        return countMovesAtDepth(boardState, depth, moveBuffers, table);
+    }
+
+    /**
+     * Recursive part of the perft, moves at each depth are generated into <code>moveBuffers[depth - 1]</code>.
+     * @param boardState the boardstate
+     * @param depth depth to which to search
+     * @param moveBuffers move buffers, at least <code>depth</code> of them
+     * @param table table of subtree counts, null if not used
+     * @return number of found states
+     */
+    private static long countMovesAtDepth(BoardState boardState, int depth, int[][] moveBuffers, PerftTable table){
+        //subtrees of depth 1 are bulk counted, which is cheaper than a table lookup
+        boolean hashed = table != null && depth > 1;
+        if (hashed){
+            long stored = table.get(boardState.getZobristHash(), depth);
+            if (stored != -1){
+                return stored;
+            }
+        }
+
+        int[] moves = moveBuffers[depth - 1];
+        int moveCount = LegalMoveGenerator.generateMoves(boardState, moves);
 
         if (depth == 1){
-            return moves.size();
+            return moveCount;
         }
 
         long result = 0;
 
-        for (Move move: moves){
-            boardState.makeMove(move);
-            long temp = countMovesAtDepth(boardState, depth - 1);
-            result += temp;
+        for (int i = 0; i < moveCount; i++){
+            boardState.makeMove(moves[i]);
+            result += countMovesAtDepth(boardState, depth - 1, moveBuffers, table);
             boardState.unmakeLastMove();
         }
 
+        if (hashed){
+            table.put(boardState.getZobristHash(), depth, result);
+        }
+
+        return result;
+    }
+
+    /**
+     * Searches the game tree fully to the requested depth on multiple threads and returns how many states it found.
+     * @param boardState the boardstate, it isn't changed
+     * @param depth depth to which to search
+     * @param threads number of threads to use
+     * @return number of found states
+     */
+    public static long countMovesAtDepth(BoardState boardState, int depth, int threads){
+        return countMovesAtDepth(boardState, depth, threads, null);
+    }
+
+    /**
+     * Searches the game tree fully to the requested depth on multiple threads, which share the table of subtree
+     * counts, and returns how many states it found.
+     * @param boardState the boardstate, it isn't changed
+     * @param depth depth to which to search
+     * @param threads number of threads to use
+     * @param table table of subtree counts, null to count every subtree
+     * @return number of found states
+     */
+    public static long countMovesAtDepth(BoardState boardState, int depth, int threads, PerftTable table){
+        long result = 0;
+        for (long count: divide(boardState, depth, threads, table).values()){
+            result += count;
+        }
         return result;
     }
+
+    /**
+     * Searches the game tree fully to the requested depth on multiple threads and returns how many states were found
+     * after each move of the root, which helps to find the exact move on which a move generator bug happens. The
+     * subtrees of the root (and of the second ply when deep enough) are counted by separate tasks of a
+     * <code>ForkJoinPool</code>, each on its own copy of the boardstate.
+     * @param boardState the boardstate, it isn't changed
+     * @param depth depth to which to search, at least 1
+     * @param threads number of threads to use
+     * @return map of root moves in the long algebraic notation to the number of found states after them, in the order
+     * of generation
+     */
+    public static Map<String, Long> divide(BoardState boardState, int depth, int threads){
+        return divide(boardState, depth, threads, null);
+    }
+
+    /**
+     * Same as <code>divide(BoardState, int, int)</code>, but the threads share the table of subtree counts.
+     * @param boardState the boardstate, it isn't changed
+     * @param depth depth to which to search, at least 1
+     * @param threads number of threads to use
+     * @param table table of subtree counts, null to count every subtree
+     * @return map of root moves in the long algebraic notation to the number of found states after them, in the order
+     * of generation
+     */
+    public static Map<String, Long> divide(BoardState boardState, int depth, int threads, PerftTable table){
+        int[] moves = new int[ChessConstants.MAX_MOVES];
+        int moveCount = LegalMoveGenerator.generateMoves(boardState, moves);
+
+        List<PerftTask> tasks = new ArrayList<>(moveCount);
+        for (int i = 0; i < moveCount; i++){
+            BoardState child = new BoardState(boardState);
+            child.makeMove(moves[i]);
+            tasks.add(new PerftTask(child, depth - 1, true, table));
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            tasks.forEach(pool::execute);
+
+            Map<String, Long> result = new LinkedHashMap<>();
+            for (int i = 0; i < moveCount; i++){
+                result.put(new Move(moves[i]).toString(), tasks.get(i).join());
+            }
+            return result;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Task counting the states of a subtree on its own boardstate.
+     */
+    private static class PerftTask extends RecursiveTask<Long> {
+        @Serial
+        private static final long serialVersionUID = 1L;
+        private final BoardState boardState;
+        private final int depth;
+        private final boolean split;
+        private final PerftTable table;
+
+        /**
+         * @param boardState boardstate owned by the task
+         * @param depth remaining depth
+         * @param split true if the subtree may be split further into a task per move
+         * @param table table of subtree counts shared by all tasks, null if not used
+         */
+        PerftTask(BoardState boardState, int depth, boolean split, PerftTable table) {
+            this.boardState = boardState;
+            this.depth = depth;
+            this.split = split;
+            this.table = table;
+        }
+
+        @Override
+        protected Long compute() {
+            if (depth == 0){
+                return 1L;
+            }
+            if (!split || depth < SECOND_PLY_SPLIT_DEPTH){
+                return countMovesAtDepth(boardState, depth, table);
+            }
+
+            int[] moves = new int[ChessConstants.MAX_MOVES];
+            int moveCount = LegalMoveGenerator.generateMoves(boardState, moves);
+            List<PerftTask> children = new ArrayList<>(moveCount);
+            for (int i = 0; i < moveCount; i++){
+                BoardState child = new BoardState(boardState);
+                child.makeMove(moves[i]);
+                children.add(new PerftTask(child, depth - 1, false, table));
+            }
+
+            long result = 0;
+            for (PerftTask child: invokeAll(children)){
+                result += child.join();
+            }
+            return result;
+        }
+    }
 }
@@ -8,6 +8,7 @@ public class SearchEndCondition {
     private long maxTime = Long.MAX_VALUE;
     private int maxDepth = Integer.MAX_VALUE;
     private long maxNodes = Long.MAX_VALUE;
+    private int mate = Integer.MAX_VALUE;
     private volatile boolean manualStop = false;
 
     public long getMaxTime() {
@@ -34,6 +35,29 @@ public class SearchEndCondition {
         this.maxNodes = maxNodes;
     }
 
+    /**
+     * @return number of moves in which the search looks for a mate, <code>Integer.MAX_VALUE</code> if it doesn't
+     */
+    public int getMate() {
+        return mate;
+    }
+
+    /**
+     * Turns the search into a mate search, it only searches as deep as a mate in the received number of moves
+     * requires and ends as soon as it proves one.
+     * @param mate number of moves of the mate, <code>Integer.MAX_VALUE</code> for a normal search
+     */
+    public void setMate(int mate) {
+        this.mate = mate;
+    }
+
+    /**
+     * @return true if the search looks for a mate in <code>getMate</code> moves
+     */
+    public boolean isMateSearch() {
+        return mate != Integer.MAX_VALUE;
+    }
+
     public boolean isManualStop() {
         return manualStop;
     }
@@ -0,0 +1,662 @@
+package hr.mi.chess.algorithm;
+
+import hr.mi.chess.algorithm.support.MoveOrdering;
+import hr.mi.chess.algorithm.support.MovePicker;
+import hr.mi.chess.algorithm.support.Score;
+import hr.mi.chess.algorithm.support.SearchInfo;
+import hr.mi.chess.algorithm.support.SearchParameters;
+import hr.mi.chess.algorithm.support.SharedSearchState;
+import hr.mi.chess.algorithm.support.StaticExchangeEvaluation;
+import hr.mi.chess.algorithm.support.TranspositionTable;
+import hr.mi.chess.constants.ChessConstants;
+import hr.mi.chess.evaluation.EvaluationFunction;
+import hr.mi.chess.models.BoardState;
+import hr.mi.chess.models.MoveEncoding;
+import hr.mi.chess.movegen.LegalMoveGenerator;
+
+/**
+ * A single search thread of the <code>GameStateSearch</code>. Holds everything the search changes which isn't shared
+ * between threads (killer moves, move buffers, node counters), the shared part is in the <code>SharedSearchState</code>.
+ * A worker must only be used by one thread at a time.
+ * @author Matej Istuk
+ */
+class SearchWorker {
+    /**
+     * Number of nodes between two reports of the node count to the shared state, which also checks the search limits
+     */
+    private static final int NODES_PER_CHECK = 1024;
+    /**
+     * Lowest remaining depth at which a null move is tried
+     */
+    private static final int NULL_MOVE_MIN_DEPTH = 3;
+    /**
+     * Depth of the transposition table entries of the quiescence search, the main search stores only higher depths
+     */
+    private static final int QUIESCENCE_DEPTH = 0;
+
+    private final SharedSearchState sharedState;
+    private final TranspositionTable transpositionTable;
+    private final SearchParameters searchParameters;
+    private final EvaluationFunction evaluationFunction;
+    private final SearchInfo searchInfo = new SearchInfo();
+    private long statesSearched;
+    private long quiescenceStatesSearched;
+    private long ttHit;
+    //nodes searched since the last report to the shared state
+    private int unreportedNodes;
+    //one move buffer (and matching score buffer) per ply, so the search doesn't allocate move lists
+    private final int[][] moveBuffers = new int[SearchInfo.MAX_PLY][ChessConstants.MAX_MOVES];
+    private final int[][] moveScores = new int[SearchInfo.MAX_PLY][ChessConstants.MAX_MOVES];
+    //quiet moves searched in each ply, they get a history malus if a later quiet move causes a cutoff
+    private final int[][] searchedQuiets = new int[SearchInfo.MAX_PLY][ChessConstants.MAX_MOVES];
+    private final MovePicker[] movePickers = new MovePicker[SearchInfo.MAX_PLY];
+    //buffer of the static exchange evaluation, an exchange is evaluated at once so every ply can share it
+    private final int[] exchangeGains = new int[StaticExchangeEvaluation.MAX_EXCHANGE];
+    private int rootBestMove;
+    //depth of the current iteration, extensions stop once a line reaches twice of it
+    private int rootDepth;
+    //move left out of the node at each ply, set while the singular extension verifies the transposition table move
+    private final int[] excludedMoves = new int[SearchInfo.MAX_PLY];
+    private long checkExtensions;
+    private long singularExtensions;
+    //null moves aren't made below this ply, set while verifying a null move cutoff
+    private int nullMoveMinPly;
+    //the search looks for a mate of the side to move in the root, see SearchEndCondition
+    private boolean mateSearch;
+
+    /**
+     * The constructor.
+     * @param sharedState state shared with the other workers of the search
+     * @param evaluationFunction the evaluation function, has to be stateless since it is shared with the other workers
+     */
+    SearchWorker(SharedSearchState sharedState, EvaluationFunction evaluationFunction) {
+        this.sharedState = sharedState;
+        this.transpositionTable = sharedState.getTranspositionTable();
+        this.searchParameters = sharedState.getSearchParameters();
+        this.evaluationFunction = evaluationFunction;
+        for (int i = 0; i < movePickers.length; i++) {
+            movePickers[i] = new MovePicker();
+        }
+    }
+
+    /**
+     * Prepares the worker for a new search. Killer moves are cleared, the history of the previous search is aged.
+     */
+    void newSearch() {
+        searchInfo.clearKillerMoves();
+        searchInfo.ageHistory();
+        unreportedNodes = 0;
+        nullMoveMinPly = 0;
+        checkExtensions = 0;
+        singularExtensions = 0;
+        mateSearch = sharedState.getSearchEndCondition().isMateSearch();
+    }
+
+    /**
+     * Forgets everything learned in earlier searches, for a new game. Killer moves, history, countermoves and
+     * continuation history are cleared.
+     */
+    void clear() {
+        searchInfo.clearKillerMoves();
+        searchInfo.clearHistory();
+    }
+
+    /**
+     * Searches the board-state to the received depth with the full window, the best move found is then returned by
+     * <code>getRootBestMove</code>.
+     * @param boardState the board-state, owned by this worker for the duration of the search
+     * @param depth depth of the search
+     * @return value of the board-state
+     */
+    int searchRoot(BoardState boardState, int depth) {
+        return searchRoot(boardState, depth, -Score.INFINITY, Score.INFINITY);
+    }
+
+    /**
+     * Searches the board-state to the received depth within the window, the best move found is then returned by
+     * <code>getRootBestMove</code>. If the value is outside the window, the returned value is only a bound.
+     * @param boardState the board-state, owned by this worker for the duration of the search
+     * @param depth depth of the search
+     * @param alpha lower bound of the window
+     * @param beta upper bound of the window
+     * @return value of the board-state, at most alpha if it is lower than the window, at least beta if it is higher
+     */
+    int searchRoot(BoardState boardState, int depth, int alpha, int beta) {
+        ttHit = 0;
+        statesSearched = 0;
+        quiescenceStatesSearched = 0;
+        rootBestMove = MoveEncoding.NO_MOVE;
+        rootDepth = depth;
+        int value = getBestMoveRec(boardState, 0, depth, alpha, beta);
+        reportNodes();
+        return value;
+    }
+
+    /**
+     * Iterative deepening of a helper thread, runs until the search is stopped. The results are only used through the
+     * transposition table.
+     * @param boardState the helper's own copy of the board-state
+     * @param startDepth depth of the first iteration
+     */
+    void searchAsHelper(BoardState boardState, int startDepth) {
+        for (int i = startDepth; i < sharedState.getSearchEndCondition().getMaxDepth() && !sharedState.isStopped(); i++) {
+            searchRoot(boardState, i);
+        }
+    }
+
+    /**
+     * @return the best move found in the root by the last <code>searchRoot</code>, <code>MoveEncoding.NO_MOVE</code>
+     * if it was stopped before one was found
+     */
+    int getRootBestMove() {
+        return rootBestMove;
+    }
+
+    /**
+     * @return number of nodes searched in the last <code>searchRoot</code>, quiescence nodes included
+     */
+    long getNodes() {
+        return statesSearched + quiescenceStatesSearched;
+    }
+
+    /**
+     * @return number of checking moves searched a ply deeper since the start of the search
+     */
+    long getCheckExtensions() {
+        return checkExtensions;
+    }
+
+    /**
+     * @return number of singular moves searched a ply deeper since the start of the search
+     */
+    long getSingularExtensions() {
+        return singularExtensions;
+    }
+
+    /**
+     * Counts a searched node, every <code>NODES_PER_CHECK</code> nodes reports them to the shared state and checks the
+     * search limits.
+     */
+    private void countNode() {
+        if (++unreportedNodes >= NODES_PER_CHECK) {
+            reportNodes();
+            sharedState.checkLimits();
+        }
+    }
+
+    /**
+     * Reports the nodes searched since the last report to the shared state.
+     */
+    private void reportNodes() {
+        sharedState.addNodes(unreportedNodes);
+        unreportedNodes = 0;
+    }
+
+    /**
+     * Recursive function which navigates the game tree depth first. Implementation of the negamax algorithm with
+     * alpha-beta pruning and transposition tables. With the principal variation search, only the first move is searched
+     * with the full window, the rest are only proven worse with a null window and searched again if they aren't. The
+     * tree is further cut down by null move pruning, frontier pruning (reverse futility, futility and razoring) and by
+     * reducing and pruning late quiet moves, while checks and singular moves (the transposition table move, if every
+     * other move is clearly worse) are extended by a ply. Mate distance pruning narrows the window to the mate scores
+     * still possible at the ply. All of them can be turned off in the <code>SearchParameters</code>. A mate search
+     * doesn't prune or reduce any moves, a mate it finds has to be forced, and the side which is looking for it tries
+     * checks first. The best move found in the root node is stored into <code>rootBestMove</code>.
+     * @param boardState the boardstate, central object of the search
+     * @param ply current depth of search
+     * @param maxSearchDepth max search depth
+     * @param alpha alpha used in alpha beta pruning
+     * @param beta beta used in alpha beta pruning
+     * @return the value of the searched node, from the perspective of the side to move
+     */
+    private int getBestMoveRec(BoardState boardState, int ply, int maxSearchDepth, int alpha, int beta){
+
+        //search termination conditions
+        if (sharedState.isStopped()){
+            return 0;
+        }
+
+        //check if the boardstate is a draw (by the 50 move rule or by repetition, draw by no moves is checked later on)
+        if (boardState.isDraw()) {
+            return Score.DRAW;
+        }
+
+        //Mate distance pruning, the side to move can't mate sooner than on the next ply, nor be mated sooner than on
+        //this one. If a shorter mate was already found, nothing in this node can change the result.
+        if (searchParameters.isMateDistancePruning() && ply > 0) {
+            alpha = Math.max(alpha, Score.matedIn(ply));
+            beta = Math.min(beta, Score.mateIn(ply + 1));
+            if (alpha >= beta) {
+                return alpha;
+            }
+        }
+
+        //Necessary for transposition tables, since alpha changes through the search
+        int originalAlpha = alpha;
+
+        //The most important search end condition, if this is met, the boardstate is evaluated by a further quiescence
+        //search. Counters the horizon effect.
+        if (ply >= maxSearchDepth || ply >= SearchInfo.MAX_PLY) {
+            return getQuiescenceEvaluation(boardState, ply, alpha, beta);
+        }
+
+
+        //Check if the current boardstate has appeared before, and if it is ok to use (searched to a greater or equal
+        //depth...). If so, use it. The root is always searched, it has to produce a move, and neither is a node searched
+        //without one of its moves for the singular extension.
+        long ttEntry = transpositionTable.probe(boardState.getZobristHash());
+        int ttMove = MoveEncoding.NO_MOVE;
+        int excludedMove = excludedMoves[ply];
+        //mate scores are stored relative to the node, not the root
+        int ttValue = Score.fromTranspositionTable(TranspositionTable.getScore(ttEntry), ply);
+
+        if (ttEntry != 0){
+            ttMove = MoveEncoding.fromShortMove(TranspositionTable.getMove(ttEntry), boardState);
+
+            if (ply > 0 && excludedMove == MoveEncoding.NO_MOVE && TranspositionTable.getDepth(ttEntry) >= (maxSearchDepth - ply)) {
+                ttHit++;
+                //Since the algorithm is using alpha beta pruning, we don't always know the exact value of the node, only
+                //the upper or lower bound.
+                switch (TranspositionTable.getType(ttEntry)) {
+                    case TranspositionTable.EXACT -> {
+                        return ttValue;
+                    }
+                    case TranspositionTable.LOWER_BOUND -> {
+                        alpha = Math.max(alpha, ttValue);
+                    }
+                    case TranspositionTable.UPPER_BOUND -> {
+                        beta = Math.min(beta, ttValue);
+                    }
+                }
+
+                if (alpha >= beta) {
+                    return ttValue;
+                }
+            }
+        }
+
+
+        statesSearched++;
+        countNode();
+        int depth = maxSearchDepth - ply;
+        boolean inCheck = LegalMoveGenerator.isInCheck(boardState);
+        //the static evaluation is meaningless in check, the side to move might be mated
+        int staticEval = inCheck ? -Score.INFINITY : evaluationFunction.evaluate(boardState);
+        //The node isn't cut short in a mate search, where a pruned defence could give a false mate, nor while the
+        //singular extension searches it without one of its moves.
+        boolean selective = !mateSearch && excludedMove == MoveEncoding.NO_MOVE;
+        //frontier pruning trusts the static evaluation, so it is only used in null window nodes away from mate scores
+        boolean frontierPruning = selective && ply > 0 && !inCheck && beta - alpha == 1 && !Score.isMate(alpha)
+                && !Score.isMate(beta);
+
+        //Reverse futility pruning, the side to move is so far ahead that it will stay above beta whatever it plays
+        if (frontierPruning && searchParameters.isReverseFutilityPruning()) {
+            int margin = searchParameters.getReverseFutilityMargin(depth);
+            if (margin != -1 && staticEval - margin >= beta) {
+                return staticEval;
+            }
+        }
+
+        //Razoring, the side to move is so far behind that only a tactic could save it, which the quiescence search
+        //looks for
+        if (frontierPruning && searchParameters.isRazoring()) {
+            int margin = searchParameters.getRazoringMargin(depth);
+            if (margin != -1 && staticEval + margin <= alpha) {
+                int quiescenceValue = getQuiescenceEvaluation(boardState, ply, alpha, alpha + 1);
+                if (quiescenceValue <= alpha) {
+                    return quiescenceValue;
+                }
+            }
+        }
+
+        //Null move pruning, if the side to move can pass and a reduced search still fails high, so would a real move.
+        //Not in check (passing is illegal), not twice in a row, not against a mate bound and not without pieces other
+        //than pawns, where zugzwang is common.
+        if (selective && searchParameters.isNullMovePruning() && ply > 0 && ply >= nullMoveMinPly && !inCheck
+                && depth >= NULL_MOVE_MIN_DEPTH && beta < Score.MATE_BOUND
+                && boardState.getLastMove() != MoveEncoding.NO_MOVE && hasNonPawnMaterial(boardState)
+                && staticEval >= beta) {
+            int reduction = searchParameters.getNullMoveReduction() + depth / 6;
+            boardState.makeNullMove();
+            int nullValue = -this.getBestMoveRec(boardState, ply + 1, maxSearchDepth - reduction, -beta, -beta + 1);
+            boardState.unmakeNullMove();
+
+            if (sharedState.isStopped()) {
+                return 0;
+            }
+            if (nullValue >= beta) {
+                //a mate found after passing isn't proven
+                if (nullValue >= Score.MATE_BOUND) {
+                    nullValue = beta;
+                }
+                if (depth < searchParameters.getNullMoveVerificationDepth()) {
+                    return nullValue;
+                }
+
+                //at high depth, the cutoff is verified by a reduced search without null moves in its first plies
+                int oldNullMoveMinPly = nullMoveMinPly;
+                nullMoveMinPly = ply + 3 * (depth - reduction) / 4;
+                int value = this.getBestMoveRec(boardState, ply, maxSearchDepth - reduction, beta - 1, beta);
+                nullMoveMinPly = oldNullMoveMinPly;
+                if (value >= beta) {
+                    return nullValue;
+                }
+            }
+        }
+
+        //Extensions, a line is never extended past twice the depth of the iteration, or the search could explode
+        boolean extensions = maxSearchDepth < 2 * rootDepth && maxSearchDepth < SearchInfo.MAX_PLY;
+
+        //Singular extension, if the transposition table move is a fail high or exact, and a reduced search without it
+        //shows every other move is clearly worse, the node depends on that one move, so it is searched a ply deeper.
+        //Has to be done before the move picker of this ply is set up, the verification search uses it as well.
+        boolean singular = false;
+        if (extensions && searchParameters.isSingularExtensions() && ply > 0 && excludedMove == MoveEncoding.NO_MOVE
+                && ttMove != MoveEncoding.NO_MOVE && depth >= searchParameters.getSingularExtensionMinDepth()
+                && TranspositionTable.getType(ttEntry) != TranspositionTable.UPPER_BOUND
+                && TranspositionTable.getDepth(ttEntry) >= depth - 3 && !Score.isMate(ttValue)) {
+            int singularBeta = ttValue - searchParameters.getSingularExtensionMargin() * depth;
+            excludedMoves[ply] = ttMove;
+            int singularValue = this.getBestMoveRec(boardState, ply, ply + (depth - 1) / 2, singularBeta - 1, singularBeta);
+            excludedMoves[ply] = MoveEncoding.NO_MOVE;
+
+            if (sharedState.isStopped()) {
+                return 0;
+            }
+            singular = singularValue < singularBeta;
+        }
+
+        //Moves are handed out in stages, so a cutoff by an early move skips generating and ordering the rest
+        MovePicker movePicker = movePickers[ply];
+        //in a mate search, the mating side tries checks first, every mate ends with one
+        movePicker.init(boardState, ttMove, searchInfo, ply, mateSearch && ply % 2 == 0);
+        int value = -Score.INFINITY;
+        int bestMove = MoveEncoding.NO_MOVE;
+        int[] quiets = searchedQuiets[ply];
+        int quietCount = 0;
+        boolean principalVariationSearch = searchParameters.isPrincipalVariationSearch();
+        boolean lateMoveReductions = !mateSearch && searchParameters.isLateMoveReductions() && !inCheck
+                && depth >= searchParameters.getLateMoveReductionMinDepth();
+        boolean lateMovePruning = !mateSearch && searchParameters.isLateMovePruning() && ply > 0 && !inCheck
+                && depth <= searchParameters.getLateMovePruningMaxDepth();
+        int futilityMargin = frontierPruning && searchParameters.isFutilityPruning()
+                ? searchParameters.getFutilityMargin(depth) : -1;
+        int movesSearched = 0;
+
+        //search through possible moves to find the best
+        int move;
+        while ((move = movePicker.nextMove()) != MoveEncoding.NO_MOVE){
+            if (move == excludedMove) {
+                continue;
+            }
+            //late quiet moves, which are unlikely to be good after the ordering, are candidates for pruning and
+            //reductions, unless they are killers or give check
+            boolean quiet = bestMove != MoveEncoding.NO_MOVE && !MoveEncoding.isCapture(move) && !MoveEncoding.isPromotion(move);
+            boolean lateQuiet = quiet && !searchInfo.checkIfKiller(ply, move);
+
+            //late move pruning, a shallow node which searched enough moves skips the remaining quiet ones, and futility
+            //pruning, a node too far below alpha skips all quiet ones, once a move which isn't mated was found
+            boolean lateMovePrunable = lateMovePruning && lateQuiet && movesSearched >= searchParameters.getLateMovePruningCount(depth);
+            boolean futile = futilityMargin != -1 && quiet && staticEval + futilityMargin <= alpha;
+            boardState.makeMove(move);
+            boolean givesCheck = LegalMoveGenerator.isInCheck(boardState);
+            if ((lateMovePrunable || futile) && value > -Score.MATE_BOUND && !givesCheck) {
+                boardState.unmakeLastMove();
+                continue;
+            }
+
+            movesSearched++;
+            int moveSearchDepth = maxSearchDepth;
+            if (singular && move == ttMove) {
+                moveSearchDepth++;
+                singularExtensions++;
+            } else if (givesCheck && extensions && searchParameters.isCheckExtensions()) {
+                //a check is only extended if the checking piece isn't simply lost, checks that hang it are rarely
+                //forcing. The exchange is evaluated before the move, so only checking moves are unmade for it.
+                boardState.unmakeLastMove();
+                boolean losing = StaticExchangeEvaluation.isLosing(boardState, move, exchangeGains);
+                boardState.makeMove(move);
+                if (!losing) {
+                    moveSearchDepth++;
+                    checkExtensions++;
+                }
+            }
+            int result;
+            if (bestMove == MoveEncoding.NO_MOVE) {
+                result = -this.getBestMoveRec(boardState, ply + 1, moveSearchDepth, -beta, -alpha);
+            } else {
+                //forces the searches below if nothing lowers it
+                result = alpha + 1;
+
+                //late move reductions, a late quiet move is first searched to a lower depth with a null window, and only
+                //searched to full depth if it beats alpha anyway
+                if (lateMoveReductions && lateQuiet && movesSearched > searchParameters.getLateMoveReductionMinMoves()
+                        && !givesCheck) {
+                    //at least one ply is left to search
+                    int reduction = Math.min(searchParameters.getLateMoveReduction(depth, movesSearched - 1), depth - 2);
+                    if (reduction > 0) {
+                        result = -this.getBestMoveRec(boardState, ply + 1, moveSearchDepth - reduction, -alpha - 1, -alpha);
+                    }
+                }
+
+                //principal variation search, the move is only proven worse with a null window
+                if (result > alpha && principalVariationSearch) {
+                    result = -this.getBestMoveRec(boardState, ply + 1, moveSearchDepth, -alpha - 1, -alpha);
+                }
+                //the move might be better, only a full window search gives its value
+                if (result > alpha && (result < beta || !principalVariationSearch)) {
+                    result = -this.getBestMoveRec(boardState, ply + 1, moveSearchDepth, -beta, -alpha);
+                }
+            }
+            if (result > value){
+                value = result;
+                bestMove = move;
+            }
+            boardState.unmakeLastMove();
+            alpha = Math.max(alpha, value);
+            if (alpha >= beta){
+                if (!MoveEncoding.isCapture(move)){
+                    searchInfo.addKillerMove(ply, move);
+                    searchInfo.updateQuietHistory(boardState, move, quiets, quietCount, depth);
+                }
+                break;
+            }
+            if (!MoveEncoding.isCapture(move)) {
+                quiets[quietCount++] = move;
+            }
+        }
+
+        //the values of a stopped search are made up, they mustn't get into the transposition table
+        if (sharedState.isStopped()) {
+            return 0;
+        }
+
+        //no legal moves, checkmate or stalemate, unless the only move was left out for the singular extension
+        if (bestMove == MoveEncoding.NO_MOVE) {
+            return excludedMove == MoveEncoding.NO_MOVE ? evaluateNoMoveBoard(boardState, ply) : alpha;
+        }
+
+        //the result of a search without one of the moves isn't the value of the node
+        if (excludedMove != MoveEncoding.NO_MOVE) {
+            return value;
+        }
+
+        //save the search results to the transposition table
+        int ttType = TranspositionTable.EXACT;
+
+        if (value <= originalAlpha){
+            ttType = TranspositionTable.UPPER_BOUND;
+        } else if (value >= beta){
+            ttType = TranspositionTable.LOWER_BOUND;
+        }
+
+        transpositionTable.store(boardState.getZobristHash(), MoveEncoding.toShortMove(bestMove),
+                Score.toTranspositionTable(value, ply), ttType, depth);
+
+        if (ply == 0) {
+            rootBestMove = bestMove;
+        }
+
+        return value;
+    }
+
+    /**
+     * Searches the boardstate recursively to stabilize it (make all possible trades, to get a more accurate evaluation
+     * of the state). Counter to the horizon effect. Only captures are generated, unless the side to move is in check,
+     * in which case it can't stand pat and all evasions are searched. Captures losing material by the static exchange
+     * evaluation, and captures which can't bring the evaluation back to alpha (delta pruning), are skipped. Results are
+     * shared through the transposition table with the depth <code>QUIESCENCE_DEPTH</code>, below that of any node of
+     * the main search, so the main search never takes them for its own.
+     * @param boardState the boardstate, central object of the search
+     * @param ply current depth of search
+     * @param alpha alpha used in alpha beta pruning
+     * @param beta beta used in alpha beta pruning
+     * @return the value of the search, from the perspective of the side to move
+     */
+    private int getQuiescenceEvaluation(BoardState boardState, int ply, int alpha, int beta) {
+        quiescenceStatesSearched++;
+        countNode();
+
+        //out of move buffers, settle for the static evaluation
+        if (ply >= SearchInfo.MAX_PLY) {
+            return evaluationFunction.evaluate(boardState);
+        }
+
+        //any entry was searched at least as deep as the quiescence search, so all of them can be used
+        long ttEntry = searchParameters.isQuiescenceTranspositionTable() ? transpositionTable.probe(boardState.getZobristHash()) : 0;
+        int ttMove = MoveEncoding.NO_MOVE;
+        if (ttEntry != 0) {
+            ttMove = MoveEncoding.fromShortMove(TranspositionTable.getMove(ttEntry), boardState);
+            int ttValue = Score.fromTranspositionTable(TranspositionTable.getScore(ttEntry), ply);
+            int ttType = TranspositionTable.getType(ttEntry);
+            if (ttType == TranspositionTable.EXACT
+                    || (ttType == TranspositionTable.LOWER_BOUND && ttValue >= beta)
+                    || (ttType == TranspositionTable.UPPER_BOUND && ttValue <= alpha)) {
+                ttHit++;
+                return ttValue;
+            }
+        }
+
+        int[] moves = moveBuffers[ply];
+        int moveCount;
+        boolean inCheck = LegalMoveGenerator.isInCheck(boardState);
+        int standingPat = -Score.INFINITY;
+
+        if (inCheck) {
+            //the legal moves in check are already only the evasions, the generator restricts every piece to capturing
+            //the checker or blocking its line, generates only king moves in a double check and no castling
+            moveCount = LegalMoveGenerator.generateMoves(boardState, moves);
+
+            if (moveCount == 0) {
+                return evaluateNoMoveBoard(boardState, ply);
+            }
+        }
+        else {
+            //theoretical lowest limit, unless the game is in Zugzwang. We're assuming that at least one capture leads to a
+            //better position
+            standingPat = evaluationFunction.evaluate(boardState);
+
+            if (standingPat >= beta) {
+                return beta;
+            }
+
+            if (alpha < standingPat) {
+                alpha = standingPat;
+            }
+
+            moveCount = LegalMoveGenerator.generateCaptures(boardState, moves);
+        }
+
+        //the moves are only scored here, each one is selected right before it is searched, so a cutoff skips ordering
+        //the rest
+        int[] scores = moveScores[ply];
+        int lastMovedPieceIndex = boardState.getLastMovedPieceIndex();
+        for (int i = 0; i < moveCount; i++) {
+            if (moves[i] == ttMove) {
+                scores[i] = Integer.MAX_VALUE;
+            }
+            else {
+                scores[i] = MoveEncoding.isCapture(moves[i]) ? MoveOrdering.scoreCapture(moves[i], lastMovedPieceIndex) : 0;
+            }
+        }
+        boolean deltaPruning = !inCheck && searchParameters.isDeltaPruning();
+        int bestMove = MoveEncoding.NO_MOVE;
+        int value;
+
+        //check moves
+        for (int i = 0; i < moveCount; i++) {
+            int move = MoveOrdering.pickBest(moves, scores, i, moveCount);
+            //even winning the captured piece for free wouldn't get the side to move to alpha
+            if (deltaPruning && !MoveEncoding.isPromotion(move) && standingPat + evaluationFunction.getPieceValue(MoveEncoding.getCapturedPiece(move) % 6)
+                    + searchParameters.getDeltaPruningMargin() <= alpha) {
+                continue;
+            }
+            //a capture losing material by the static exchange is assumed not to help the side to move, only the rare
+            //exchange misjudged because of a pin or a check is missed. Evasions are all searched
+            if (!inCheck && StaticExchangeEvaluation.isLosing(boardState, move, exchangeGains)) {
+                continue;
+            }
+            boardState.makeMove(move);
+            value = -this.getQuiescenceEvaluation(boardState, ply + 1, -beta, -alpha);
+            boardState.unmakeLastMove();
+
+            if (value >= beta){
+                storeQuiescenceEvaluation(boardState, ttEntry, move, beta, TranspositionTable.LOWER_BOUND, ply);
+                return beta;
+            }
+
+            if (value > alpha) {
+                alpha = value;
+                bestMove = move;
+            }
+        }
+
+        storeQuiescenceEvaluation(boardState, ttEntry, bestMove, alpha,
+                bestMove == MoveEncoding.NO_MOVE ? TranspositionTable.UPPER_BOUND : TranspositionTable.EXACT, ply);
+        return alpha;
+    }
+
+    /**
+     * Stores the result of a quiescence search node into the transposition table. Nothing is stored if the search
+     * was stopped, or if the node already has an entry of the main search, which is worth more.
+     * @param boardState the boardstate of the node
+     * @param ttEntry the entry of the node found when it was probed, 0 if there was none
+     * @param move the best move of the node, <code>MoveEncoding.NO_MOVE</code> if none raised alpha
+     * @param value value of the node
+     * @param type type of the value, either exact, upper bound or lower bound
+     * @param ply current depth of search
+     */
+    private void storeQuiescenceEvaluation(BoardState boardState, long ttEntry, int move, int value, int type, int ply) {
+        if (!searchParameters.isQuiescenceTranspositionTable() || sharedState.isStopped()
+                || (ttEntry != 0 && TranspositionTable.getDepth(ttEntry) > QUIESCENCE_DEPTH)) {
+            return;
+        }
+        transpositionTable.store(boardState.getZobristHash(), MoveEncoding.toShortMove(move),
+                Score.toTranspositionTable(value, ply), type, QUIESCENCE_DEPTH);
+    }
+
+    /**
+     * @param boardState the boardstate
+     * @return true if the side to move has a piece other than pawns and the king
+     */
+    private static boolean hasNonPawnMaterial(BoardState boardState) {
+        long[] bitboards = boardState.getBitboards();
+        int offset = boardState.getActiveColour() == ChessConstants.WHITE ? 0 : 6;
+        //rooks, knights, bishops and queens
+        return (bitboards[offset + 1] | bitboards[offset + 2] | bitboards[offset + 3] | bitboards[offset + 4]) != 0;
+    }
+
+    /**
+     * Used to evaluate a board with no legal moves. Returns the score of being mated at the received ply for a
+     * checkmate, and a draw for a stalemate.
+     * @param boardState boardstate being evaluated
+     * @param ply depth at which the no move board was found
+     * @return score, from the perspective of the side to move
+     */
+    private int evaluateNoMoveBoard(BoardState boardState, int ply) {
+        if (LegalMoveGenerator.isInCheck(boardState)){
+            return Score.matedIn(ply);
+        }
+        return Score.DRAW;
+    }
+}
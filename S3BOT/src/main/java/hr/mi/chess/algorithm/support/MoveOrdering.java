@@ -0,0 +1,64 @@
+package hr.mi.chess.algorithm.support;
+
+import hr.mi.chess.models.MoveEncoding;
+
+/**
+ * Move ordering primitives of the search. Moves are kept in an <code>int[]</code> buffer with their scores in a
+ * parallel <code>int[]</code>, and instead of sorting the whole buffer the best remaining move is selected just before
+ * it is searched. Most nodes with a cutoff only search the first move or two, so the rest are never ordered, and
+ * nothing is allocated.
+ * @author Matej Istuk
+ */
+public class MoveOrdering {
+    /**
+     * Bonus for capturing the piece which was moved last, recaptures are usually the best captures
+     */
+    public static final int RECAPTURE_BONUS = 1001;
+
+    private MoveOrdering() {
+    }
+
+    /**
+     * Scores a capture by <a href="https://www.chessprogramming.org/MVV-LVA">MVV_LVA</a>, recapturing the last moved
+     * piece is preferred.
+     * @param move the capture
+     * @param lastMovedPieceIndex index of the tile to which the last moved piece was moved to
+     * @return score, always positive
+     */
+    public static int scoreCapture(int move, int lastMovedPieceIndex) {
+        int score = MVV_LVA.MVV_LVA_TABLE[MoveEncoding.getCapturedPiece(move) % 6][MoveEncoding.getPiece(move) % 6];
+        if (MoveEncoding.getTo(move) == lastMovedPieceIndex) {
+            score += RECAPTURE_BONUS;
+        }
+        return score;
+    }
+
+    /**
+     * Selection step, moves the highest scored move of the range to its start. Ties keep the order of the buffer, so
+     * picking the whole range gives the same order as a stable sort.
+     * @param moves move buffer
+     * @param scores scores of the moves, parallel to the move buffer
+     * @param from start of the range (inclusive)
+     * @param to end of the range (exclusive)
+     * @return the highest scored move, now at <code>moves[from]</code>
+     */
+    public static int pickBest(int[] moves, int[] scores, int from, int to) {
+        int best = from;
+        for (int i = from + 1; i < to; i++) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+
+        int move = moves[best];
+        int score = scores[best];
+        //shift instead of swap, so the order of the remaining ties doesn't change
+        for (int i = best; i > from; i--) {
+            moves[i] = moves[i - 1];
+            scores[i] = scores[i - 1];
+        }
+        moves[from] = move;
+        scores[from] = score;
+        return move;
+    }
+}
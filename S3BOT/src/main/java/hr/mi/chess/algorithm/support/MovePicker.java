@@ -0,0 +1,241 @@
+package hr.mi.chess.algorithm.support;
+
+import hr.mi.chess.constants.ChessConstants;
+import hr.mi.chess.models.BoardState;
+import hr.mi.chess.models.MoveEncoding;
+import hr.mi.chess.movegen.LegalMoveGenerator;
+
+/**
+ * Staged move picker, hands out the moves of a node one by one in the order in which they are most likely to cause a
+ * cutoff, doing as little work as possible before the first one:
+ * <ol>
+ *     <li>the move from the transposition table, without generating anything</li>
+ *     <li>captures, by <a href="https://www.chessprogramming.org/MVV-LVA">MVV_LVA</a> with recaptures first, the ones
+ *     losing material by the static exchange evaluation (see <code>StaticExchangeEvaluation</code>) last</li>
+ *     <li><a href="https://www.chessprogramming.org/Killer_Move">killer moves</a></li>
+ *     <li>the countermove of the previous move</li>
+ *     <li>the remaining quiet moves, by history score (see <code>SearchInfo</code>)</li>
+ * </ol>
+ * Captures and quiet moves are generated separately, so quiet moves are only generated if no capture caused a cutoff.
+ * When looking for a mate, the moves giving check can be put first among the captures and among the quiet moves.
+ * The picker is meant to be reused, one per ply, so it doesn't allocate after construction.
+ * @author Matej Istuk
+ */
+public class MovePicker {
+    private static final int STAGE_TT_MOVE = 0;
+    private static final int STAGE_GENERATE_CAPTURES = 1;
+    private static final int STAGE_CAPTURES = 2;
+    private static final int STAGE_GENERATE_QUIETS = 3;
+    private static final int STAGE_KILLERS = 4;
+    private static final int STAGE_COUNTER_MOVE = 5;
+    private static final int STAGE_QUIETS = 6;
+    private static final int STAGE_DONE = 7;
+    /**
+     * Subtracted from the score of a capture which loses material, so it is ordered after all other captures
+     */
+    private static final int LOSING_CAPTURE_PENALTY = 10000;
+    /**
+     * Added to the score of a move giving check when checks go first, above any capture or history score
+     */
+    private static final int CHECK_BONUS = 1 << 20;
+
+    private final int[] captures = new int[ChessConstants.MAX_MOVES];
+    private final int[] scores = new int[ChessConstants.MAX_MOVES];
+    private final int[] quiets = new int[ChessConstants.MAX_MOVES];
+    private final int[] exchangeGains = new int[StaticExchangeEvaluation.MAX_EXCHANGE];
+    private BoardState boardState;
+    private SearchInfo searchInfo;
+    private int stage;
+    private int ttMove;
+    private final int[] killerMoves = new int[2];
+    private int counterMove;
+    private int lastMovedPieceIndex;
+    private int captureCount;
+    private int quietCount;
+    private int index;
+    private int killerIndex;
+    private boolean checksFirst;
+
+    /**
+     * Prepares the picker for a new node.
+     * @param boardState the boardstate of the node
+     * @param ttMove move from the transposition table entry of this exact position, <code>MoveEncoding.NO_MOVE</code>
+     *               if there is none
+     * @param searchInfo killer moves, countermoves and history of the searching thread
+     * @param ply current depth of search
+     * @param checksFirst true if moves giving check should be ordered first within the captures and the quiet moves
+     */
+    public void init(BoardState boardState, int ttMove, SearchInfo searchInfo, int ply, boolean checksFirst) {
+        this.boardState = boardState;
+        this.searchInfo = searchInfo;
+        this.ttMove = isPlausible(boardState, ttMove) ? ttMove : MoveEncoding.NO_MOVE;
+        this.killerMoves[0] = searchInfo.getKillerMove(ply, 0);
+        this.killerMoves[1] = searchInfo.getKillerMove(ply, 1);
+        this.counterMove = searchInfo.getCounterMove(boardState);
+        this.lastMovedPieceIndex = boardState.getLastMovedPieceIndex();
+        this.checksFirst = checksFirst;
+        this.stage = STAGE_TT_MOVE;
+    }
+
+    /**
+     * Returns the next move to search.
+     * @return packed move, <code>MoveEncoding.NO_MOVE</code> when there are no more moves
+     */
+    public int nextMove() {
+        switch (stage) {
+            case STAGE_TT_MOVE -> {
+                stage = STAGE_GENERATE_CAPTURES;
+                if (ttMove != MoveEncoding.NO_MOVE) {
+                    return ttMove;
+                }
+                return nextMove();
+            }
+            case STAGE_GENERATE_CAPTURES -> {
+                generateCaptures();
+                stage = STAGE_CAPTURES;
+                return nextMove();
+            }
+            case STAGE_CAPTURES -> {
+                while (index < captureCount) {
+                    int move = MoveOrdering.pickBest(captures, scores, index, captureCount);
+                    index++;
+                    if (move != ttMove) {
+                        return move;
+                    }
+                }
+                stage = STAGE_GENERATE_QUIETS;
+                return nextMove();
+            }
+            case STAGE_GENERATE_QUIETS -> {
+                generateQuiets();
+                killerIndex = 0;
+                stage = STAGE_KILLERS;
+                return nextMove();
+            }
+            case STAGE_KILLERS -> {
+                while (killerIndex < killerMoves.length) {
+                    int killer = killerMoves[killerIndex++];
+                    //a killer is only used if it is a legal quiet move in this position, it is then removed from the
+                    //quiets so it isn't returned twice
+                    if (killer != ttMove && removeQuiet(killer)) {
+                        return killer;
+                    }
+                }
+                stage = STAGE_COUNTER_MOVE;
+                return nextMove();
+            }
+            case STAGE_COUNTER_MOVE -> {
+                stage = STAGE_QUIETS;
+                //removing it also filters out killers, they were removed from the quiets already
+                if (counterMove != ttMove && removeQuiet(counterMove)) {
+                    return counterMove;
+                }
+                return nextMove();
+            }
+            case STAGE_QUIETS -> {
+                while (index < quietCount) {
+                    int move = MoveOrdering.pickBest(quiets, scores, index, quietCount);
+                    index++;
+                    if (move != ttMove) {
+                        return move;
+                    }
+                }
+                stage = STAGE_DONE;
+                return MoveEncoding.NO_MOVE;
+            }
+            default -> {
+                return MoveEncoding.NO_MOVE;
+            }
+        }
+    }
+
+    /**
+     * Generates and scores the captures.
+     */
+    private void generateCaptures() {
+        captureCount = LegalMoveGenerator.generateCaptures(boardState, captures);
+        for (int i = 0; i < captureCount; i++) {
+            scores[i] = MoveOrdering.scoreCapture(captures[i], lastMovedPieceIndex);
+            if (StaticExchangeEvaluation.isLosing(boardState, captures[i], exchangeGains)) {
+                scores[i] -= LOSING_CAPTURE_PENALTY;
+            }
+            if (checksFirst && givesCheck(captures[i])) {
+                scores[i] += CHECK_BONUS;
+            }
+        }
+        index = 0;
+    }
+
+    /**
+     * Generates the quiet moves and scores them by history, the captures are done so their score buffer is reused.
+     */
+    private void generateQuiets() {
+        quietCount = LegalMoveGenerator.generateQuiets(boardState, quiets);
+        for (int i = 0; i < quietCount; i++) {
+            scores[i] = searchInfo.getHistoryScore(boardState, quiets[i]);
+            if (checksFirst && givesCheck(quiets[i])) {
+                scores[i] += CHECK_BONUS;
+            }
+        }
+        index = 0;
+    }
+
+    /**
+     * @param move the move, legal in the boardstate
+     * @return true if the move puts the opponent in check
+     */
+    private boolean givesCheck(int move) {
+        boardState.makeMove(move);
+        boolean check = LegalMoveGenerator.isInCheck(boardState);
+        boardState.unmakeLastMove();
+        return check;
+    }
+
+    /**
+     * Removes the move from the not yet returned quiet moves.
+     * @param move the move
+     * @return true if the move was among them
+     */
+    private boolean removeQuiet(int move) {
+        if (move == MoveEncoding.NO_MOVE) {
+            return false;
+        }
+        for (int i = index; i < quietCount; i++) {
+            if (quiets[i] == move) {
+                System.arraycopy(quiets, i + 1, quiets, i, quietCount - i - 1);
+                System.arraycopy(scores, i + 1, scores, i, quietCount - i - 1);
+                quietCount--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Cheap sanity check of a transposition table move. The entry was matched by the full zobrist hash, so the move
+     * was legal in this position, the check only guards the bitboards against the extremely rare hash collision.
+     * @param boardState the boardstate
+     * @param move the move
+     * @return true if the board matches what the move expects (moved and captured pieces, free destination, rights)
+     */
+    private static boolean isPlausible(BoardState boardState, int move) {
+        if (move == MoveEncoding.NO_MOVE) {
+            return false;
+        }
+        int piece = MoveEncoding.getPiece(move);
+        if ((piece < 6) != (boardState.getActiveColour() == ChessConstants.WHITE) || boardState.getPieceOnSquare(MoveEncoding.getFrom(move)) != piece) {
+            return false;
+        }
+        int to = MoveEncoding.getTo(move);
+        int capturedPiece = MoveEncoding.getCapturedPiece(move);
+        boolean white = boardState.getActiveColour() == ChessConstants.WHITE;
+        return switch (MoveEncoding.getFlags(move)) {
+            case 2 -> white ? boardState.isWhiteKingSideCastling() : boardState.isBlackKingSideCastling();
+            case 3 -> white ? boardState.isWhiteQueenSideCastling() : boardState.isBlackQueenSideCastling();
+            case 5 -> to == boardState.getEnPassantTarget();
+            default -> MoveEncoding.isCapture(move)
+                    ? capturedPiece != -1 && boardState.getPieceOnSquare(to) == capturedPiece
+                    : boardState.getPieceOnSquare(to) == -1;
+        };
+    }
+}
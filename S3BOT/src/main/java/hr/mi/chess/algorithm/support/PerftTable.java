@@ -0,0 +1,62 @@
+package hr.mi.chess.algorithm.support;
+
+/**
+ * Fixed-size hash table of perft subtree counts, keyed by the zobrist hash of the position and the remaining depth.
+ * Perft only depends on the position, not on how it was reached, so a subtree counted once can be reused on every
+ * transposition.
+ * <p>
+ *     The table is a single <code>long[]</code> with two longs per entry, the key xor-ed with the data and the data
+ *     itself, so it can be shared by threads without locking. A torn write (key of one entry and data of another) fails
+ *     the key check and is treated as a miss, see
+ *     <a href="https://www.chessprogramming.org/Shared_Hash_Table#Lockless">lockless hashing</a>. Entries are always
+ *     replaced.
+ * </p>
+ * @author Matej Istuk
+ */
+public class PerftTable {
+    private static final int DEPTH_BITS = 8;
+    private static final long DEPTH_MASK = (1L << DEPTH_BITS) - 1;
+    private static final int BYTES_PER_ENTRY = 16;
+
+    private final long[] table;
+    private final int indexMask;
+
+    /**
+     * Creates the table, the number of entries is the largest power of two which fits into the received size.
+     * @param sizeMb size of the table in megabytes
+     */
+    public PerftTable(int sizeMb) {
+        long entries = Long.highestOneBit(Math.max(1L, (long) sizeMb * 1024 * 1024 / BYTES_PER_ENTRY));
+        entries = Math.min(entries, 1L << 29);
+        this.table = new long[(int) entries * 2];
+        this.indexMask = (int) entries - 1;
+    }
+
+    /**
+     * Returns the stored count of the subtree.
+     * @param zobristHash zobrist hash of the position
+     * @param depth remaining depth of the subtree
+     * @return number of states in the subtree, -1 if it isn't stored
+     */
+    public long get(long zobristHash, int depth) {
+        int index = ((int) zobristHash & indexMask) << 1;
+        long data = table[index + 1];
+        if ((table[index] ^ data) != zobristHash || (data & DEPTH_MASK) != depth) {
+            return -1;
+        }
+        return data >>> DEPTH_BITS;
+    }
+
+    /**
+     * Stores the count of the subtree, replacing whatever was in its slot.
+     * @param zobristHash zobrist hash of the position
+     * @param depth remaining depth of the subtree
+     * @param count number of states in the subtree
+     */
+    public void put(long zobristHash, int depth, long count) {
+        int index = ((int) zobristHash & indexMask) << 1;
+        long data = (count << DEPTH_BITS) | depth;
+        table[index] = zobristHash ^ data;
+        table[index + 1] = data;
+    }
+}
@@ -0,0 +1,82 @@
+package hr.mi.chess.algorithm.support;
+
+/**
+ * The score domain of the <code>GameStateSearch</code>. Scores are whole centipawns from the perspective of the side to
+ * move, bounded so they fit into a <code>short</code>:
+ * <ul>
+ *     <li>evaluations lie strictly between <code>-MATE_BOUND</code> and <code>MATE_BOUND</code></li>
+ *     <li>mate scores lie between <code>MATE_BOUND</code> and <code>MATE</code> (or their negations), a mate in
+ *     <code>n</code> plies from the root is <code>MATE - n</code></li>
+ *     <li><code>INFINITY</code> is only used as the initial search window, no node has that value</li>
+ * </ul>
+ * A mate score stored in the transposition table has to be relative to the stored node instead of the root, since the
+ * node can be reached at a different ply, see <code>toTranspositionTable</code> and
+ * <code>fromTranspositionTable</code>.
+ * @author Matej Istuk
+ */
+public class Score {
+    public static final int INFINITY = 32000;
+    public static final int MATE = 31000;
+    public static final int MATE_BOUND = MATE - SearchInfo.MAX_PLY;
+    public static final int DRAW = 0;
+
+    private Score() {
+    }
+
+    /**
+     * @param ply ply from the root at which the side to move is mated
+     * @return score of being mated at the received ply, from the perspective of the mated side
+     */
+    public static int matedIn(int ply) {
+        return -MATE + ply;
+    }
+
+    /**
+     * @param ply ply from the root at which the opponent is mated
+     * @return score of mating at the received ply
+     */
+    public static int mateIn(int ply) {
+        return MATE - ply;
+    }
+
+    /**
+     * @param score score
+     * @return true if the score is a mate, for either side
+     */
+    public static boolean isMate(int score) {
+        return Math.abs(score) >= MATE_BOUND;
+    }
+
+    /**
+     * Converts a score relative to the root to one relative to the node it was found in, for storing into the
+     * transposition table.
+     * @param score score, relative to the root
+     * @param ply ply of the node
+     * @return score relative to the node
+     */
+    public static int toTranspositionTable(int score, int ply) {
+        if (score >= MATE_BOUND) {
+            return score + ply;
+        }
+        if (score <= -MATE_BOUND) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    /**
+     * Converts a score read from the transposition table, relative to its node, to one relative to the root.
+     * @param score score, relative to the node
+     * @param ply ply of the node
+     * @return score relative to the root
+     */
+    public static int fromTranspositionTable(int score, int ply) {
+        if (score >= MATE_BOUND) {
+            return score - ply;
+        }
+        if (score <= -MATE_BOUND) {
+            return score + ply;
+        }
+        return score;
+    }
+}
@@ -1,29 +1,46 @@
 package hr.mi.chess.algorithm.support;
 
-import hr.mi.chess.models.Move;
+import hr.mi.chess.constants.ChessConstants;
+import hr.mi.chess.models.BoardState;
+import hr.mi.chess.models.MoveEncoding;
 
 import java.util.Arrays;
-import java.util.Objects;
 
 /**
- * Class which acts as storage for the <code>GameStateSearch</code>, storing killer moves and transposition tables.
+ * Class which acts as storage for the <code>GameStateSearch</code>, storing what the search learns about quiet moves:
+ * <ul>
+ *     <li><a href="https://www.chessprogramming.org/Killer_Move">killer moves</a>, by ply</li>
+ *     <li><a href="https://www.chessprogramming.org/History_Heuristic">butterfly history</a>, by colour and the from
+ *     and to square of the move</li>
+ *     <li><a href="https://www.chessprogramming.org/Countermove_Heuristic">countermoves</a>, the quiet move which
+ *     refuted the previous move, by the piece and to square of the previous move</li>
+ *     <li>continuation history, history of a move by the piece and to square of the previous move</li>
+ * </ul>
+ * History values are updated with gravity, a bonus shrinks the closer the value is to <code>MAX_HISTORY</code>, so they
+ * stay bounded and recent results count more. Between searches they are halved.
  * @author Matej Istuk
  */
 public class SearchInfo {
-    private final static int MAX_PLY = 125;
+    public final static int MAX_PLY = 125;
+    public final static int MAX_HISTORY = 16384;
     private final static int MAX_KILLER_MOVES = 2;
-    private final Move[][] killerMoves = new Move[MAX_PLY][MAX_KILLER_MOVES];
+    private final static int MAX_HISTORY_BONUS = 1600;
+    private final int[][] killerMoves = new int[MAX_PLY][MAX_KILLER_MOVES];
+    private final int[][][] history = new int[2][64][64];
+    private final int[][] counterMoves = new int[12][64];
+    //[previous piece][previous to][piece][to], flattened, the values fit into a short
+    private final short[] continuationHistory = new short[12 * 64 * 12 * 64];
 
     /**
      * Adds a killer move to the received ply
      * @param currentPly depth of search at which the killer move was found
-     * @param killerMove the killer move
+     * @param killerMove the killer move, packed as described in <code>MoveEncoding</code>
      */
-    public void addKillerMove(int currentPly, Move killerMove){
-        Move firstKillerMove = killerMoves[currentPly][0];
+    public void addKillerMove(int currentPly, int killerMove){
+        int firstKillerMove = killerMoves[currentPly][0];
 
         //The new killer move can't be the same as the most recent one added
-        if (!Objects.equals(firstKillerMove, killerMove)){
+        if (firstKillerMove != killerMove){
             for (int i = MAX_KILLER_MOVES - 1; i > 0; i--) {
                 killerMoves[currentPly][i] = killerMoves[currentPly][i-1];
             }
@@ -35,95 +52,139 @@ public class SearchInfo {
     /**
      * Checks if the received move is killer.
      * @param currentPly current depth of search
-     * @param move candidate move
+     * @param move candidate move, packed as described in <code>MoveEncoding</code>
      * @return true if the move is a killer move, false if not
      */
-    public boolean checkIfKiller(int currentPly, Move move) {
-        for (Move killerMove: killerMoves[currentPly]) {
-            if (Objects.equals(move, killerMove)){
+    public boolean checkIfKiller(int currentPly, int move) {
+        for (int killerMove: killerMoves[currentPly]) {
+            if (move == killerMove){
                 return true;
             }
         }
         return false;
     }
 
+    /**
+     * Returns a killer move of the received ply.
+     * @param currentPly current depth of search
+     * @param index index of the killer move, lower is more recent
+     * @return packed move, <code>MoveEncoding.NO_MOVE</code> if there is none
+     */
+    public int getKillerMove(int currentPly, int index) {
+        return killerMoves[currentPly][index];
+    }
+
     /**
      * Clears all stored killer moves.
      */
     public void clearKillerMoves() {
-        Arrays.stream(killerMoves).forEach(arr -> Arrays.fill(arr, null));
+        Arrays.stream(killerMoves).forEach(arr -> Arrays.fill(arr, MoveEncoding.NO_MOVE));
     }
 
-    public static final int EXACT = 1;
-    public static final int LOWER_BOUND = 2;
-    public static final int UPPER_BOUND = 3;
-    private final TTEntry[] tTable;
-    private final long indexMask;
-
-
     /**
-     * Constructor, sets the transposition table size to 33554432 entries
+     * Returns the history score of a quiet move, the sum of its butterfly and continuation history.
+     * @param boardState the boardstate before the move, used for the colour and the previous move
+     * @param move quiet move, packed as described in <code>MoveEncoding</code>
+     * @return history score, between <code>-2 * MAX_HISTORY</code> and <code>2 * MAX_HISTORY</code>
      */
-    public SearchInfo(){
-        this(33554432);
+    public int getHistoryScore(BoardState boardState, int move) {
+        int score = history[colourIndex(boardState)][MoveEncoding.getFrom(move)][MoveEncoding.getTo(move)];
+        int previousMove = boardState.getLastMove();
+        if (previousMove != MoveEncoding.NO_MOVE) {
+            score += continuationHistory[continuationIndex(previousMove, move)];
+        }
+        return score;
     }
 
     /**
-     * Constructor, the size parameter will be set to the lowest or equal power of 2.
-     * @param size int, must be positive
+     * Returns the move which last refuted the previous move of the received boardstate.
+     * @param boardState the boardstate
+     * @return packed move, <code>MoveEncoding.NO_MOVE</code> if there is none
      */
-    public SearchInfo(int size) {
-        //check if size is power of 2, if it isn't set it to the highest power of 2 lower than the received one
-        if (Integer.bitCount(size) != 1 || size != 0) {
-            size = Integer.highestOneBit(size);
+    public int getCounterMove(BoardState boardState) {
+        int previousMove = boardState.getLastMove();
+        if (previousMove == MoveEncoding.NO_MOVE) {
+            return MoveEncoding.NO_MOVE;
         }
-
-        tTable = new TTEntry[size];
-
-        indexMask = size - 1;
+        return counterMoves[MoveEncoding.getPiece(previousMove)][MoveEncoding.getTo(previousMove)];
     }
 
     /**
-     * Stores the ttEntry into the table
-     * @param ttEntry ttEntry
+     * Updates the tables after a quiet move caused a beta cutoff. The move gets a bonus and becomes the countermove
+     * of the previous move, the quiet moves searched before it get a malus of the same size.
+     * @param boardState the boardstate of the node
+     * @param move quiet move which caused the cutoff
+     * @param searchedQuiets quiet moves searched before it, without a cutoff
+     * @param searchedQuietCount number of such moves
+     * @param depth remaining depth of the node
      */
-    public void ttStore(TTEntry ttEntry) {
-        if (tTable.length == 0){
-            return;
+    public void updateQuietHistory(BoardState boardState, int move, int[] searchedQuiets, int searchedQuietCount, int depth) {
+        int bonus = Math.min(depth * depth, MAX_HISTORY_BONUS);
+        int colour = colourIndex(boardState);
+        int previousMove = boardState.getLastMove();
+
+        updateHistory(colour, previousMove, move, bonus);
+        for (int i = 0; i < searchedQuietCount; i++) {
+            updateHistory(colour, previousMove, searchedQuiets[i], -bonus);
         }
 
-        int index = (int) (ttEntry.zobristHash&indexMask);
+        if (previousMove != MoveEncoding.NO_MOVE) {
+            counterMoves[MoveEncoding.getPiece(previousMove)][MoveEncoding.getTo(previousMove)] = move;
+        }
+    }
 
-        //keep the one which was explored to a greater depth
-        if (tTable[index] != null && tTable[index].creationMove >= ttEntry.creationMove && tTable[index].depth >= ttEntry.depth){
-            return;
+    /**
+     * Halves all history values, so the next search relies on them less. Countermoves are kept.
+     */
+    public void ageHistory() {
+        for (int[][] colourHistory: history) {
+            for (int[] fromHistory: colourHistory) {
+                for (int i = 0; i < fromHistory.length; i++) {
+                    fromHistory[i] /= 2;
+                }
+            }
+        }
+        for (int i = 0; i < continuationHistory.length; i++) {
+            continuationHistory[i] /= 2;
         }
-        tTable[index] = ttEntry;
     }
 
     /**
-     *
-     * Returns the entry, if any, for the received zobrist hash
-     * @param zobristHash long
-     * @return TTEntry
+     * Clears all history values and countermoves.
      */
-    public TTEntry ttGet(long zobristHash) {
-        if (tTable.length == 0){
-            return null;
+    public void clearHistory() {
+        for (int[][] colourHistory: history) {
+            for (int[] fromHistory: colourHistory) {
+                Arrays.fill(fromHistory, 0);
+            }
+        }
+        Arrays.fill(continuationHistory, (short) 0);
+        for (int[] pieceCounterMoves: counterMoves) {
+            Arrays.fill(pieceCounterMoves, MoveEncoding.NO_MOVE);
         }
-        return tTable[(int) (zobristHash&indexMask)];
     }
 
     /**
-     * Entry for the transposition table
-     * @param zobristHash of the board
-     * @param value of the board-state from the perspective of the active player at the beginning of the search
-     * @param type of node, either exact, upper bound or lower bound
-     * @param bestMove the best move found in the node
-     * @param depth the depth to which the board-state was searched to
-     * @param creationMove on which move was the search started
+     * Applies the bonus (or malus, if negative) to the butterfly and continuation history of the move, with gravity.
      */
-    public record TTEntry (long zobristHash, double value, int type, Move bestMove, int depth, int creationMove) {
+    private void updateHistory(int colour, int previousMove, int move, int bonus) {
+        int[] fromHistory = history[colour][MoveEncoding.getFrom(move)];
+        int to = MoveEncoding.getTo(move);
+        fromHistory[to] += bonus - fromHistory[to] * Math.abs(bonus) / MAX_HISTORY;
+
+        if (previousMove != MoveEncoding.NO_MOVE) {
+            int index = continuationIndex(previousMove, move);
+            int value = continuationHistory[index];
+            continuationHistory[index] = (short) (value + bonus - value * Math.abs(bonus) / MAX_HISTORY);
+        }
     }
 
+    private static int colourIndex(BoardState boardState) {
+        return boardState.getActiveColour() == ChessConstants.WHITE ? 0 : 1;
+    }
+
+    private static int continuationIndex(int previousMove, int move) {
+        return ((MoveEncoding.getPiece(previousMove) * 64 + MoveEncoding.getTo(previousMove)) * 12
+                + MoveEncoding.getPiece(move)) * 64 + MoveEncoding.getTo(move);
+    }
 }
@@ -0,0 +1,423 @@
+package hr.mi.chess.algorithm.support;
+
+/**
+ * Switches and tuning parameters of the search techniques of the <code>GameStateSearch</code>, so they can be compared
+ * against each other. Shared by all search threads, so it should only be changed between searches. By default
+ * everything is turned on.
+ * @author Matej Istuk
+ */
+public class SearchParameters {
+    private static final int MAX_REDUCTION_DEPTH = 64;
+    private static final int MAX_REDUCTION_MOVES = 64;
+
+    private boolean principalVariationSearch = true;
+    private boolean aspirationWindows = true;
+    private int aspirationWindow = 50;
+    private boolean nullMovePruning = true;
+    private int nullMoveReduction = 3;
+    private int nullMoveVerificationDepth = 10;
+    private boolean lateMoveReductions = true;
+    private double lateMoveReductionBase = 0.75;
+    private double lateMoveReductionDivisor = 2.25;
+    private int lateMoveReductionMinDepth = 3;
+    private int lateMoveReductionMinMoves = 3;
+    //[depth][number of moves searched before], see calculateLateMoveReductions
+    private final int[][] lateMoveReductionTable = new int[MAX_REDUCTION_DEPTH][MAX_REDUCTION_MOVES];
+    private boolean lateMovePruning = true;
+    private int lateMovePruningMaxDepth = 3;
+    private int lateMovePruningBase = 3;
+    //margins of the frontier pruning techniques, indexed by remaining depth, the technique is used up to the last index
+    private boolean reverseFutilityPruning = true;
+    private int[] reverseFutilityMargins = {0, 100, 200, 300, 400, 500, 600};
+    private boolean futilityPruning = true;
+    private int[] futilityMargins = {0, 150, 300, 450};
+    private boolean razoring = true;
+    private int[] razoringMargins = {0, 500, 900};
+    private boolean deltaPruning = true;
+    private int deltaPruningMargin = 200;
+    private boolean quiescenceTranspositionTable = true;
+    private boolean checkExtensions = true;
+    private boolean singularExtensions = true;
+    private int singularExtensionMinDepth = 6;
+    private int singularExtensionMargin = 2;
+    private boolean mateDistancePruning = true;
+
+    /**
+     * The constructor, all techniques are turned on with their default parameters.
+     */
+    public SearchParameters() {
+        calculateLateMoveReductions();
+    }
+
+    /**
+     * @return true if the search uses the <a href="https://www.chessprogramming.org/Principal_Variation_Search">principal
+     * variation search</a>, false for plain alpha-beta
+     */
+    public boolean isPrincipalVariationSearch() {
+        return principalVariationSearch;
+    }
+
+    public void setPrincipalVariationSearch(boolean principalVariationSearch) {
+        this.principalVariationSearch = principalVariationSearch;
+    }
+
+    /**
+     * @return true if the iterations of the search start with an
+     * <a href="https://www.chessprogramming.org/Aspiration_Windows">aspiration window</a> around the score of the
+     * previous iteration
+     */
+    public boolean isAspirationWindows() {
+        return aspirationWindows;
+    }
+
+    public void setAspirationWindows(boolean aspirationWindows) {
+        this.aspirationWindows = aspirationWindows;
+    }
+
+    /**
+     * @return half of the width of the initial aspiration window, in centipawns
+     */
+    public int getAspirationWindow() {
+        return aspirationWindow;
+    }
+
+    public void setAspirationWindow(int aspirationWindow) {
+        this.aspirationWindow = aspirationWindow;
+    }
+
+    /**
+     * @return true if the search uses <a href="https://www.chessprogramming.org/Null_Move_Pruning">null move
+     * pruning</a>
+     */
+    public boolean isNullMovePruning() {
+        return nullMovePruning;
+    }
+
+    public void setNullMovePruning(boolean nullMovePruning) {
+        this.nullMovePruning = nullMovePruning;
+    }
+
+    /**
+     * @return by how many plies the search after a null move is reduced, on top of the move itself, at low depth
+     * (it grows by a ply for every 6 plies of depth)
+     */
+    public int getNullMoveReduction() {
+        return nullMoveReduction;
+    }
+
+    public void setNullMoveReduction(int nullMoveReduction) {
+        this.nullMoveReduction = nullMoveReduction;
+    }
+
+    /**
+     * @return remaining depth from which a null move cutoff is verified by a reduced search without null moves, against
+     * zugzwang
+     */
+    public int getNullMoveVerificationDepth() {
+        return nullMoveVerificationDepth;
+    }
+
+    public void setNullMoveVerificationDepth(int nullMoveVerificationDepth) {
+        this.nullMoveVerificationDepth = nullMoveVerificationDepth;
+    }
+
+    /**
+     * @return true if the search uses <a href="https://www.chessprogramming.org/Late_Move_Reductions">late move
+     * reductions</a> of quiet moves
+     */
+    public boolean isLateMoveReductions() {
+        return lateMoveReductions;
+    }
+
+    public void setLateMoveReductions(boolean lateMoveReductions) {
+        this.lateMoveReductions = lateMoveReductions;
+    }
+
+    /**
+     * @return constant part of the late move reduction formula, see <code>getLateMoveReduction</code>
+     */
+    public double getLateMoveReductionBase() {
+        return lateMoveReductionBase;
+    }
+
+    public void setLateMoveReductionBase(double lateMoveReductionBase) {
+        this.lateMoveReductionBase = lateMoveReductionBase;
+        calculateLateMoveReductions();
+    }
+
+    /**
+     * @return divisor of the logarithmic part of the late move reduction formula, see <code>getLateMoveReduction</code>
+     */
+    public double getLateMoveReductionDivisor() {
+        return lateMoveReductionDivisor;
+    }
+
+    public void setLateMoveReductionDivisor(double lateMoveReductionDivisor) {
+        this.lateMoveReductionDivisor = lateMoveReductionDivisor;
+        calculateLateMoveReductions();
+    }
+
+    /**
+     * @return lowest remaining depth at which moves are reduced
+     */
+    public int getLateMoveReductionMinDepth() {
+        return lateMoveReductionMinDepth;
+    }
+
+    public void setLateMoveReductionMinDepth(int lateMoveReductionMinDepth) {
+        this.lateMoveReductionMinDepth = lateMoveReductionMinDepth;
+    }
+
+    /**
+     * @return number of moves of a node searched at full depth before the reductions start
+     */
+    public int getLateMoveReductionMinMoves() {
+        return lateMoveReductionMinMoves;
+    }
+
+    public void setLateMoveReductionMinMoves(int lateMoveReductionMinMoves) {
+        this.lateMoveReductionMinMoves = lateMoveReductionMinMoves;
+    }
+
+    /**
+     * Returns by how many plies a late quiet move is reduced, <code>base + ln(depth) * ln(movesSearched) / divisor</code>
+     * rounded down, read from a table.
+     * @param depth remaining depth of the node
+     * @param movesSearched number of moves of the node searched before this one
+     * @return the reduction, in plies
+     */
+    public int getLateMoveReduction(int depth, int movesSearched) {
+        return lateMoveReductionTable[Math.min(depth, MAX_REDUCTION_DEPTH - 1)][Math.min(movesSearched, MAX_REDUCTION_MOVES - 1)];
+    }
+
+    /**
+     * @return true if the search uses late move pruning, quiet moves of shallow nodes are skipped after enough moves
+     * were searched
+     */
+    public boolean isLateMovePruning() {
+        return lateMovePruning;
+    }
+
+    public void setLateMovePruning(boolean lateMovePruning) {
+        this.lateMovePruning = lateMovePruning;
+    }
+
+    /**
+     * @return highest remaining depth at which late moves are pruned
+     */
+    public int getLateMovePruningMaxDepth() {
+        return lateMovePruningMaxDepth;
+    }
+
+    public void setLateMovePruningMaxDepth(int lateMovePruningMaxDepth) {
+        this.lateMovePruningMaxDepth = lateMovePruningMaxDepth;
+    }
+
+    /**
+     * @return constant part of the number of moves searched before late moves are pruned, see
+     * <code>getLateMovePruningCount</code>
+     */
+    public int getLateMovePruningBase() {
+        return lateMovePruningBase;
+    }
+
+    public void setLateMovePruningBase(int lateMovePruningBase) {
+        this.lateMovePruningBase = lateMovePruningBase;
+    }
+
+    /**
+     * @param depth remaining depth of the node
+     * @return number of moves searched in a node before its late quiet moves are pruned, <code>base + depth^2</code>
+     */
+    public int getLateMovePruningCount(int depth) {
+        return lateMovePruningBase + depth * depth;
+    }
+
+    /**
+     * @return true if the search uses reverse futility pruning (static null move pruning), a node whose static
+     * evaluation is above beta by more than the margin of its depth fails high without searching
+     */
+    public boolean isReverseFutilityPruning() {
+        return reverseFutilityPruning;
+    }
+
+    public void setReverseFutilityPruning(boolean reverseFutilityPruning) {
+        this.reverseFutilityPruning = reverseFutilityPruning;
+    }
+
+    /**
+     * @param depth remaining depth of the node
+     * @return margin of reverse futility pruning at the depth, -1 if it isn't used at that depth
+     */
+    public int getReverseFutilityMargin(int depth) {
+        return depth < reverseFutilityMargins.length ? reverseFutilityMargins[depth] : -1;
+    }
+
+    /**
+     * @param reverseFutilityMargins margins of reverse futility pruning, indexed by remaining depth
+     */
+    public void setReverseFutilityMargins(int[] reverseFutilityMargins) {
+        this.reverseFutilityMargins = reverseFutilityMargins.clone();
+    }
+
+    /**
+     * @return true if the search uses <a href="https://www.chessprogramming.org/Futility_Pruning">futility pruning</a>,
+     * quiet moves of a node whose static evaluation is below alpha by more than the margin of its depth are skipped
+     */
+    public boolean isFutilityPruning() {
+        return futilityPruning;
+    }
+
+    public void setFutilityPruning(boolean futilityPruning) {
+        this.futilityPruning = futilityPruning;
+    }
+
+    /**
+     * @param depth remaining depth of the node
+     * @return margin of futility pruning at the depth, -1 if it isn't used at that depth
+     */
+    public int getFutilityMargin(int depth) {
+        return depth < futilityMargins.length ? futilityMargins[depth] : -1;
+    }
+
+    /**
+     * @param futilityMargins margins of futility pruning, indexed by remaining depth
+     */
+    public void setFutilityMargins(int[] futilityMargins) {
+        this.futilityMargins = futilityMargins.clone();
+    }
+
+    /**
+     * @return true if the search uses <a href="https://www.chessprogramming.org/Razoring">razoring</a>, a node whose
+     * static evaluation is below alpha by more than the margin of its depth is settled by the quiescence search, if that
+     * confirms it
+     */
+    public boolean isRazoring() {
+        return razoring;
+    }
+
+    public void setRazoring(boolean razoring) {
+        this.razoring = razoring;
+    }
+
+    /**
+     * @param depth remaining depth of the node
+     * @return margin of razoring at the depth, -1 if it isn't used at that depth
+     */
+    public int getRazoringMargin(int depth) {
+        return depth < razoringMargins.length ? razoringMargins[depth] : -1;
+    }
+
+    /**
+     * @param razoringMargins margins of razoring, indexed by remaining depth
+     */
+    public void setRazoringMargins(int[] razoringMargins) {
+        this.razoringMargins = razoringMargins.clone();
+    }
+
+    /**
+     * @return true if the quiescence search uses <a href="https://www.chessprogramming.org/Delta_Pruning">delta
+     * pruning</a>, captures which can't raise the standing pat to alpha even with the margin added are skipped
+     */
+    public boolean isDeltaPruning() {
+        return deltaPruning;
+    }
+
+    public void setDeltaPruning(boolean deltaPruning) {
+        this.deltaPruning = deltaPruning;
+    }
+
+    /**
+     * @return margin of delta pruning, added to the standing pat and the value of the captured piece, in centipawns
+     */
+    public int getDeltaPruningMargin() {
+        return deltaPruningMargin;
+    }
+
+    public void setDeltaPruningMargin(int deltaPruningMargin) {
+        this.deltaPruningMargin = deltaPruningMargin;
+    }
+
+    /**
+     * @return true if the quiescence search probes and stores the transposition table
+     */
+    public boolean isQuiescenceTranspositionTable() {
+        return quiescenceTranspositionTable;
+    }
+
+    public void setQuiescenceTranspositionTable(boolean quiescenceTranspositionTable) {
+        this.quiescenceTranspositionTable = quiescenceTranspositionTable;
+    }
+
+    /**
+     * @return true if the search uses <a href="https://www.chessprogramming.org/Check_Extensions">check extensions</a>,
+     * moves giving check which don't lose material are searched a ply deeper
+     */
+    public boolean isCheckExtensions() {
+        return checkExtensions;
+    }
+
+    public void setCheckExtensions(boolean checkExtensions) {
+        this.checkExtensions = checkExtensions;
+    }
+
+    /**
+     * @return true if the search uses <a href="https://www.chessprogramming.org/Singular_Extensions">singular
+     * extensions</a>, the transposition table move is searched a ply deeper if a reduced search shows every other move
+     * is worse by more than the margin
+     */
+    public boolean isSingularExtensions() {
+        return singularExtensions;
+    }
+
+    public void setSingularExtensions(boolean singularExtensions) {
+        this.singularExtensions = singularExtensions;
+    }
+
+    /**
+     * @return lowest remaining depth at which the singular extension is tried
+     */
+    public int getSingularExtensionMinDepth() {
+        return singularExtensionMinDepth;
+    }
+
+    public void setSingularExtensionMinDepth(int singularExtensionMinDepth) {
+        this.singularExtensionMinDepth = singularExtensionMinDepth;
+    }
+
+    /**
+     * @return by how much every other move has to be worse than the transposition table move for it to be singular, in
+     * centipawns per ply of remaining depth
+     */
+    public int getSingularExtensionMargin() {
+        return singularExtensionMargin;
+    }
+
+    public void setSingularExtensionMargin(int singularExtensionMargin) {
+        this.singularExtensionMargin = singularExtensionMargin;
+    }
+
+    /**
+     * @return true if the search uses <a href="https://www.chessprogramming.org/Mate_Distance_Pruning">mate distance
+     * pruning</a>, the window of a node is narrowed to the mate scores still reachable from its ply
+     */
+    public boolean isMateDistancePruning() {
+        return mateDistancePruning;
+    }
+
+    public void setMateDistancePruning(boolean mateDistancePruning) {
+        this.mateDistancePruning = mateDistancePruning;
+    }
+
+    /**
+     * Fills the table of late move reductions from the current formula parameters.
+     */
+    private void calculateLateMoveReductions() {
+        for (int depth = 1; depth < MAX_REDUCTION_DEPTH; depth++) {
+            for (int moves = 1; moves < MAX_REDUCTION_MOVES; moves++) {
+                double reduction = lateMoveReductionBase + Math.log(depth) * Math.log(moves) / lateMoveReductionDivisor;
+                lateMoveReductionTable[depth][moves] = Math.max(0, (int) reduction);
+            }
+        }
+    }
+}
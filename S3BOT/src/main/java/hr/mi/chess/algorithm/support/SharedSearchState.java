@@ -0,0 +1,101 @@
+package hr.mi.chess.algorithm.support;
+
+import hr.mi.chess.algorithm.SearchEndCondition;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * State of a search shared by all of its threads: the transposition table, the parameters and limits of the search,
+ * the stop flag and the node counter. Everything in it is safe to use from multiple threads, the rest of the search state is confined
+ * to a single thread.
+ * @author Matej Istuk
+ */
+public class SharedSearchState {
+    private final TranspositionTable transpositionTable;
+    private final SearchParameters searchParameters = new SearchParameters();
+    private final LongAdder nodes = new LongAdder();
+    private volatile boolean stopped;
+    private volatile SearchEndCondition searchEndCondition = new SearchEndCondition();
+    private volatile long searchStartTime;
+
+    /**
+     * The constructor.
+     * @param ttSize number of transposition table entries, see <code>TranspositionTable</code>
+     */
+    public SharedSearchState(int ttSize) {
+        this.transpositionTable = new TranspositionTable(ttSize);
+    }
+
+    /**
+     * Prepares the state for a new search, must be called before the search threads are started.
+     * @param searchEndCondition limits of the search
+     */
+    public void startSearch(SearchEndCondition searchEndCondition) {
+        this.searchEndCondition = searchEndCondition;
+        this.searchStartTime = System.currentTimeMillis();
+        this.stopped = false;
+        nodes.reset();
+        transpositionTable.newSearch();
+    }
+
+    /**
+     * Stops the search on all threads.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * @return true if the search was stopped, by a thread or manually
+     */
+    public boolean isStopped() {
+        return stopped || searchEndCondition.isManualStop();
+    }
+
+    /**
+     * Checks the time and node limits, stops the search if any of them is reached. Relatively expensive, so it should
+     * only be called every once in a while.
+     * @return true if the search is stopped
+     */
+    public boolean checkLimits() {
+        if (nodes.sum() >= searchEndCondition.getMaxNodes()
+                || System.currentTimeMillis() - searchStartTime > searchEndCondition.getMaxTime()) {
+            stopped = true;
+        }
+        return isStopped();
+    }
+
+    /**
+     * Adds to the number of nodes searched by all threads.
+     * @param count number of nodes a thread searched since it last reported
+     */
+    public void addNodes(long count) {
+        nodes.add(count);
+    }
+
+    /**
+     * @return number of nodes searched by all threads, as reported so far
+     */
+    public long getNodes() {
+        return nodes.sum();
+    }
+
+    /**
+     * @return time when the search was started, in milliseconds
+     */
+    public long getSearchStartTime() {
+        return searchStartTime;
+    }
+
+    public SearchEndCondition getSearchEndCondition() {
+        return searchEndCondition;
+    }
+
+    public SearchParameters getSearchParameters() {
+        return searchParameters;
+    }
+
+    public TranspositionTable getTranspositionTable() {
+        return transpositionTable;
+    }
+}
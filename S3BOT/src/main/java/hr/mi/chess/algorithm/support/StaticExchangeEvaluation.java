@@ -0,0 +1,141 @@
+package hr.mi.chess.algorithm.support;
+
+import hr.mi.chess.constants.ChessConstants;
+import hr.mi.chess.constants.ChessPieceConstants;
+import hr.mi.chess.models.BoardState;
+import hr.mi.chess.models.MoveEncoding;
+import hr.mi.chess.movegen.helpers.MoveUtil;
+
+/**
+ * <a href="https://www.chessprogramming.org/Static_Exchange_Evaluation">Static exchange evaluation</a>, the material
+ * outcome of the sequence of captures on the destination square of a move, in which both sides always recapture with
+ * their least valuable attacker and may stop whenever continuing would lose material. Sliders behind the pieces which
+ * already captured join the exchange (x-rays), pins and checks are ignored. The evaluation is called for most captures
+ * of the search, so it works in a buffer owned by the caller instead of allocating, see <code>MAX_EXCHANGE</code>.
+ * @author Matej Istuk
+ */
+public class StaticExchangeEvaluation {
+    /**
+     * Values of the pieces in the exchange, indexed by piece key modulo 6 (the same values as in <code>MVV_LVA</code>)
+     */
+    public static final int[] PIECE_VALUES = {100, 500, 320, 330, 900, 20000};
+    /**
+     * Attackers are tried from the least valuable up
+     */
+    private static final int[] ATTACKER_ORDER = {
+            ChessPieceConstants.PAWN,
+            ChessPieceConstants.KNIGHT,
+            ChessPieceConstants.BISHOP,
+            ChessPieceConstants.ROOK,
+            ChessPieceConstants.QUEEN,
+            ChessPieceConstants.KING
+    };
+    /**
+     * Length of the buffer the evaluation works in, there can't be more captures in an exchange than pieces on the board
+     */
+    public static final int MAX_EXCHANGE = 32;
+
+    private StaticExchangeEvaluation() {
+    }
+
+    /**
+     * Returns the material the side to move wins by the move and the exchange that follows on its destination square.
+     * @param boardState the boardstate before the move
+     * @param move the move, legal in the boardstate
+     * @param gain buffer for the material balance after each capture, at least <code>MAX_EXCHANGE</code> long
+     * @return material balance of the exchange, in centipawns, negative if the move loses material
+     */
+    public static int evaluate(BoardState boardState, int move, int[] gain) {
+        int flags = MoveEncoding.getFlags(move);
+        //castling doesn't start an exchange
+        if (flags == 2 || flags == 3) {
+            return 0;
+        }
+
+        long[] bitboards = boardState.getBitboards();
+        int from = MoveEncoding.getFrom(move);
+        int to = MoveEncoding.getTo(move);
+        long occupancy = boardState.getOccupiedAll() ^ (1L << from);
+
+        gain[0] = 0;
+        int attackerValue = PIECE_VALUES[MoveEncoding.getPiece(move) % 6];
+        if (flags == 5) {
+            //the en passant captured pawn isn't on the destination square
+            gain[0] = PIECE_VALUES[ChessPieceConstants.PAWN];
+            occupancy ^= 1L << (boardState.getActiveColour() == ChessConstants.WHITE ? to - 8 : to + 8);
+        }
+        else if (MoveEncoding.isCapture(move)) {
+            gain[0] = PIECE_VALUES[MoveEncoding.getCapturedPiece(move) % 6];
+        }
+        if (MoveEncoding.isPromotion(move)) {
+            attackerValue = PIECE_VALUES[ChessPieceConstants.ROOK + (flags & 3)];
+            gain[0] += attackerValue - PIECE_VALUES[ChessPieceConstants.PAWN];
+        }
+
+        long attackers = MoveUtil.attacksTo(bitboards, to, occupancy);
+        boolean colour = boardState.getPassiveColour();
+        int depth = 0;
+        while (depth + 1 < MAX_EXCHANGE) {
+            long ownAttackers = attackers & boardState.getOccupancy(colour);
+            if (ownAttackers == 0L) {
+                break;
+            }
+            int offset = colour == ChessConstants.WHITE ? 0 : 6;
+            int attacker = ChessPieceConstants.KING;
+            long attackerBit = 0L;
+            for (int type: ATTACKER_ORDER) {
+                long typeAttackers = ownAttackers & bitboards[offset + type];
+                if (typeAttackers != 0L) {
+                    attacker = type;
+                    attackerBit = typeAttackers & -typeAttackers;
+                    break;
+                }
+            }
+            //the king can only capture if the square isn't defended anymore
+            if (attacker == ChessPieceConstants.KING && (attackers & boardState.getOccupancy(!colour)) != 0L) {
+                break;
+            }
+
+            depth++;
+            //material of the side making the capture if it isn't answered
+            gain[depth] = attackerValue - gain[depth - 1];
+
+            attackerValue = PIECE_VALUES[attacker];
+            occupancy ^= attackerBit;
+            //only sliders can be discovered behind the piece that captured
+            if (attacker == ChessPieceConstants.PAWN || attacker == ChessPieceConstants.BISHOP || attacker == ChessPieceConstants.QUEEN) {
+                attackers |= MoveUtil.bishopAttacks(to, occupancy) & (bitboards[ChessPieceConstants.BISHOP] | bitboards[ChessPieceConstants.QUEEN]
+                        | bitboards[6 + ChessPieceConstants.BISHOP] | bitboards[6 + ChessPieceConstants.QUEEN]);
+            }
+            if (attacker == ChessPieceConstants.ROOK || attacker == ChessPieceConstants.QUEEN) {
+                attackers |= MoveUtil.rookAttacks(to, occupancy) & (bitboards[ChessPieceConstants.ROOK] | bitboards[ChessPieceConstants.QUEEN]
+                        | bitboards[6 + ChessPieceConstants.ROOK] | bitboards[6 + ChessPieceConstants.QUEEN]);
+            }
+            attackers &= occupancy;
+            colour = !colour;
+        }
+
+        //each side chooses between stopping and continuing the exchange, from the last capture back to the first
+        while (depth > 0) {
+            gain[depth - 1] = -Math.max(-gain[depth - 1], gain[depth]);
+            depth--;
+        }
+        return gain[0];
+    }
+
+    /**
+     * Cheaper check than <code>evaluate</code> for whether a capture loses material. Capturing a piece worth at least as
+     * much as the capturing one can't lose, so the exchange is only evaluated for the rest.
+     * @param boardState the boardstate before the move
+     * @param move the move, legal in the boardstate
+     * @param gain buffer for the evaluation, at least <code>MAX_EXCHANGE</code> long
+     * @return true if the static exchange evaluation of the move is negative
+     */
+    public static boolean isLosing(BoardState boardState, int move, int[] gain) {
+        if (MoveEncoding.isCapture(move) && MoveEncoding.getFlags(move) != 5
+                && PIECE_VALUES[MoveEncoding.getCapturedPiece(move) % 6] >= PIECE_VALUES[MoveEncoding.getPiece(move) % 6]) {
+            return false;
+        }
+        return evaluate(boardState, move, gain) < 0;
+    }
+}
@@ -0,0 +1,179 @@
+package hr.mi.chess.algorithm.support;
+
+import java.util.Arrays;
+
+/**
+ * Transposition table of the <code>GameStateSearch</code>, stores the results of searched nodes by the zobrist hash of
+ * their board-state.
+ * <p>
+ *     The table is a single <code>long[]</code> with two longs per entry, the zobrist hash xor-ed with the data and the
+ *     data itself, so nothing is allocated when storing and the table can be shared by threads without locking. A torn
+ *     write (key of one entry and data of another) fails the key check and is treated as a miss, see
+ *     <a href="https://www.chessprogramming.org/Shared_Hash_Table#Lockless">lockless hashing</a>. The data is packed
+ *     as:
+ * </p>
+ * <ul>
+ *     <li>bits 0-15: best move, in the short form of <code>MoveEncoding</code></li>
+ *     <li>bits 16-23: depth to which the node was searched</li>
+ *     <li>bits 24-25: type of the node, exact, lower bound or upper bound</li>
+ *     <li>bits 26-31: age, the generation of the search which stored the entry</li>
+ *     <li>bits 32-63: value of the node, mate scores relative to the node (see <code>Score</code>)</li>
+ * </ul>
+ * An empty slot holds zero, which no stored entry can be, because the type is never zero.
+ * <p>
+ *     Entries are grouped into buckets of four, one 64 byte cache line, and a position can be stored in any entry of
+ *     its bucket. The table is kept between searches, every search starts a new generation
+ *     (<code>newSearch</code>), and when the bucket is full the entry with the lowest depth, lowered further by how
+ *     many generations old it is, is replaced. So deep results of earlier searches stay usable until they age out.
+ * </p>
+ * @author Matej Istuk
+ */
+public class TranspositionTable {
+    public static final int EXACT = 1;
+    public static final int LOWER_BOUND = 2;
+    public static final int UPPER_BOUND = 3;
+    private static final int AGE_MASK = 0x3F;
+
+    private static final int BUCKET_ENTRIES = 4;
+    private static final int LONGS_PER_BUCKET = BUCKET_ENTRIES * 2;
+    /**
+     * How many plies of depth an entry is worth less for each generation of age, when choosing the one to replace
+     */
+    private static final int AGE_PENALTY = 8;
+    private static final int DEPTH_SHIFT = 16;
+    private static final int TYPE_SHIFT = 24;
+    private static final int AGE_SHIFT = 26;
+    private static final int SCORE_SHIFT = 32;
+    private static final int MOVE_MASK = 0xFFFF;
+    private static final int DEPTH_MASK = 0xFF;
+    private static final int TYPE_MASK = 0x3;
+    private static final int MAX_SIZE = 1 << 30;
+
+    private final long[] table;
+    private final int bucketMask;
+    private int generation;
+
+    /**
+     * Constructor, the size parameter will be set to the highest power of 2 lower than or equal to it.
+     * @param size number of entries, each takes 16 bytes
+     */
+    public TranspositionTable(int size) {
+        int buckets = size <= 0 ? 0 : Math.max(1, Math.min(Integer.highestOneBit(size), MAX_SIZE) / BUCKET_ENTRIES);
+        this.table = new long[buckets * LONGS_PER_BUCKET];
+        this.bucketMask = buckets - 1;
+    }
+
+    /**
+     * Starts a new generation, should be called at the start of every search. Entries of earlier generations are still
+     * used, but are replaced sooner.
+     */
+    public void newSearch() {
+        generation = (generation + 1) & AGE_MASK;
+    }
+
+    /**
+     * Returns the entry stored for the received zobrist hash.
+     * @param zobristHash zobrist hash of the board-state
+     * @return packed entry, read with the static getters of this class, 0 if there is none
+     */
+    public long probe(long zobristHash) {
+        if (table.length == 0) {
+            return 0;
+        }
+        int bucket = ((int) zobristHash & bucketMask) * LONGS_PER_BUCKET;
+        for (int index = bucket; index < bucket + LONGS_PER_BUCKET; index += 2) {
+            long data = table[index + 1];
+            if ((table[index] ^ data) == zobristHash && data != 0) {
+                return data;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Stores the entry into the table, in the current generation. Replaces the entry of the same board-state if there
+     * is one, otherwise an empty entry of the bucket or the one worth the least by depth and age.
+     * @param zobristHash zobrist hash of the board-state
+     * @param move the best move found in the node, packed as described in <code>MoveEncoding</code>
+     * @param score value of the node
+     * @param type of node, either exact, upper bound or lower bound
+     * @param depth the depth to which the node was searched
+     */
+    public void store(long zobristHash, int move, int score, int type, int depth) {
+        if (table.length == 0) {
+            return;
+        }
+        int bucket = ((int) zobristHash & bucketMask) * LONGS_PER_BUCKET;
+        int replaced = bucket;
+        int replacedWorth = Integer.MAX_VALUE;
+        for (int index = bucket; index < bucket + LONGS_PER_BUCKET; index += 2) {
+            long oldData = table[index + 1];
+            if (oldData == 0 || (table[index] ^ oldData) == zobristHash) {
+                replaced = index;
+                break;
+            }
+
+            int worth = getDepth(oldData) - AGE_PENALTY * ((generation - getAge(oldData)) & AGE_MASK);
+            if (worth < replacedWorth) {
+                replaced = index;
+                replacedWorth = worth;
+            }
+        }
+
+        long data = (move & MOVE_MASK)
+                | ((long) (depth & DEPTH_MASK) << DEPTH_SHIFT)
+                | ((long) type << TYPE_SHIFT)
+                | ((long) generation << AGE_SHIFT)
+                | ((long) score << SCORE_SHIFT);
+        table[replaced] = zobristHash ^ data;
+        table[replaced + 1] = data;
+    }
+
+    /**
+     * Removes all entries and resets the generation, for a new game.
+     */
+    public void clear() {
+        Arrays.fill(table, 0L);
+        generation = 0;
+    }
+
+    /**
+     * @param entry packed entry
+     * @return the best move, in the short form of <code>MoveEncoding</code>
+     */
+    public static int getMove(long entry) {
+        return (int) entry & MOVE_MASK;
+    }
+
+    /**
+     * @param entry packed entry
+     * @return the depth to which the node was searched
+     */
+    public static int getDepth(long entry) {
+        return (int) (entry >>> DEPTH_SHIFT) & DEPTH_MASK;
+    }
+
+    /**
+     * @param entry packed entry
+     * @return type of node, either exact, upper bound or lower bound
+     */
+    public static int getType(long entry) {
+        return (int) (entry >>> TYPE_SHIFT) & TYPE_MASK;
+    }
+
+    /**
+     * @param entry packed entry
+     * @return age of the search which stored the entry
+     */
+    public static int getAge(long entry) {
+        return (int) (entry >>> AGE_SHIFT) & AGE_MASK;
+    }
+
+    /**
+     * @param entry packed entry
+     * @return value of the node
+     */
+    public static int getScore(long entry) {
+        return (int) (entry >> SCORE_SHIFT);
+    }
+}
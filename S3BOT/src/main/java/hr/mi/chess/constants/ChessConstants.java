@@ -7,5 +7,9 @@ package hr.mi.chess.constants;
 public class ChessConstants {
     public static final boolean WHITE = true;
     public static final boolean BLACK = false;
+    /**
+     * Upper bound of legal moves in any position (the known maximum is 218), used to size move buffers.
+     */
+    public static final int MAX_MOVES = 256;
 
 }
@@ -3,22 +3,28 @@ package hr.mi.chess.evaluation;
 import hr.mi.chess.models.BoardState;
 
 /**
- * Model of a class that evaluates a board position, it's only function returning a double representing the board states "goodness"
+ * Model of a class that evaluates a board position, it's only function returning an int representing the board states "goodness"
  * @author Matej Istuk
  */
 public interface EvaluationFunction {
 
     /**
-     * Evaluates the given board-state, returning its "goodness"
+     * Evaluates the given board-state, returning its "goodness" from the perspective of the side to move. Implementations
+     * must not keep any state between calls, the same instance is used by all search threads. The result must lie
+     * strictly between <code>-Score.MATE_BOUND</code> and <code>Score.MATE_BOUND</code>, the rest of the range is used
+     * by mate scores.
      *
      * @param boardState the board-state to be evaluates
-     * @return a double representing the absolute "goodness" of the board-state
+     * @return the "goodness" of the board-state for the side to move, in centipawns
      */
     int evaluate(BoardState boardState);
 
     /**
-     * Sets the perspective from which the board will be evaluated for the evaluation function.
-     * @param perspective chess colour
+     * Returns the material value the evaluation gives to a piece, in the units of <code>evaluate</code>. Used by the
+     * search to estimate how much a capture can change the evaluation.
+     *
+     * @param pieceType type of the piece, its key modulo 6
+     * @return value of the piece
      */
-    void setPerspective(boolean perspective);
+    int getPieceValue(int pieceType);
 }
@@ -9,18 +9,17 @@ import hr.mi.chess.models.BoardState;
  */
 public class SimpleEvaluationFunction implements EvaluationFunction{
 
-    private boolean perspective;
     private static final int[] pieceValues = {1, 3, 3, 5, 9, 0};
 
     @Override
     public int evaluate(BoardState boardState) {
-        return (perspective == ChessConstants.WHITE ? 1 : -1) * (calculateBoardValueByColour(boardState.getBitboards(), ChessConstants.WHITE)
+        return (boardState.getActiveColour() == ChessConstants.WHITE ? 1 : -1) * (calculateBoardValueByColour(boardState.getBitboards(), ChessConstants.WHITE)
                 - calculateBoardValueByColour(boardState.getBitboards(), ChessConstants.BLACK));
     }
 
     @Override
-    public void setPerspective(boolean perspective) {
-        this.perspective = perspective;
+    public int getPieceValue(int pieceType) {
+        return pieceValues[pieceType];
     }
 
     /**
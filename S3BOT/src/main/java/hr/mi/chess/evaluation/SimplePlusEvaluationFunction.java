@@ -16,7 +16,6 @@ import hr.mi.chess.util.BoardFunctions;
  */
 public class SimplePlusEvaluationFunction implements EvaluationFunction{
 
-    private boolean perspective;
     private final int[] pieceValues = {
             100,
             500,
@@ -164,13 +163,13 @@ public class SimplePlusEvaluationFunction implements EvaluationFunction{
 
     @Override
     public int evaluate(BoardState boardState) {
-        return (perspective == ChessConstants.WHITE ? 1 : -1) * (calculateValueByColour(boardState, ChessConstants.WHITE) -
+        return (boardState.getActiveColour() == ChessConstants.WHITE ? 1 : -1) * (calculateValueByColour(boardState, ChessConstants.WHITE) -
                 calculateValueByColour(boardState, ChessConstants.BLACK));
     }
 
     @Override
-    public void setPerspective(boolean perspective) {
-        this.perspective = perspective;
+    public int getPieceValue(int pieceType) {
+        return pieceValues[pieceType];
     }
 
     /**
@@ -3,6 +3,7 @@ package hr.mi.chess.models;
 import hr.mi.chess.constants.ChessBoardConstants;
 import hr.mi.chess.models.support.ZobristNumbers;
 import hr.mi.chess.movegen.LegalMoveGenerator;
+import hr.mi.chess.util.BoardFunctions;
 import hr.mi.chess.util.ChessTranslator;
 import hr.mi.chess.constants.ChessConstants;
 import hr.mi.chess.constants.ChessPieceConstants;
@@ -20,11 +21,30 @@ public class BoardState {
     private final static int CAPTURE_FLAG = 4;
     private final static int SPECIAL_1_FLAG = 2;
     private final static int SPECIAL_0_FLAG = 1;
-    private int lastMovedPieceIndex = -1;
+    //bit layout of the packed irreversible state, see packIrreversibleState
+    private final static int WHITE_KING_SIDE_CASTLING_BIT = 1;
+    private final static int WHITE_QUEEN_SIDE_CASTLING_BIT = 2;
+    private final static int BLACK_KING_SIDE_CASTLING_BIT = 4;
+    private final static int BLACK_QUEEN_SIDE_CASTLING_BIT = 8;
+    private final static int EN_PASSANT_SHIFT = 4;
+    private final static int EN_PASSANT_MASK = 0x7F;
+    private final static int HALF_MOVE_CLOCK_SHIFT = 11;
+    private final static int INITIAL_HISTORY_CAPACITY = 1024;
     /**
      * Bitboards in the Little-Endian Rank-File Mapping
      */
     private final long[] bitboards = new long[12];
+    /**
+     * Occupancy of each colour and of the whole board, kept up to date with the bitboards so it doesn't have to be
+     * recalculated from all 12 of them.
+     */
+    private long whiteOccupancy;
+    private long blackOccupancy;
+    private long occupiedAll;
+    /**
+     * Key of the piece on each square (LERF offset index), -1 if the square is empty.
+     */
+    private final byte[] mailbox = new byte[64];
     private boolean whiteKingSideCastling;
     private boolean whiteQueenSideCastling;
     private boolean blackKingSideCastling;
@@ -33,9 +53,24 @@ public class BoardState {
     private int halfMoveClock;
     private boolean activeColour;
     private int enPassantTarget;
-    private final Stack<Move> previousMoves;
     private long zobristHash = 0;
-    private final Map<Long, Integer> repetitionMap;
+    /**
+     * Number of moves made since the position was loaded, indexes the history arrays.
+     */
+    private int ply;
+    /**
+     * Moves made since the position was loaded, packed as described in <code>MoveEncoding</code>.
+     */
+    private int[] moveHistory = new int[INITIAL_HISTORY_CAPACITY];
+    /**
+     * State which can't be recovered from the move when it is unmade (castling, en passant and half-move clock), as
+     * it was before the move with the same index was made.
+     */
+    private int[] irreversibleHistory = new int[INITIAL_HISTORY_CAPACITY];
+    /**
+     * Zobrist hash of the position after each ply, the loaded position is at index 0. Also used to detect repetitions.
+     */
+    private long[] zobristHistory = new long[INITIAL_HISTORY_CAPACITY + 1];
 
     /**
      * Creates the starting board-state of a standard chess game.
@@ -50,10 +85,33 @@ public class BoardState {
      *            <a href="https://en.wikipedia.org/wiki/Forsyth%E2%80%93Edwards_Notation">Forsyth–Edwards Notation</a> for more detail
      */
     public BoardState(String fen){
-        previousMoves = new Stack<>();
-        repetitionMap = new HashMap<>();
         loadFen(fen);
-        this.addToRepetition();
+    }
+
+    /**
+     * Creates a copy of the received board-state, including the moves made on it, so the copy can be worked on (for
+     * example on another thread) independently of the original.
+     * @param other board-state to copy
+     */
+    public BoardState(BoardState other){
+        System.arraycopy(other.bitboards, 0, bitboards, 0, bitboards.length);
+        System.arraycopy(other.mailbox, 0, mailbox, 0, mailbox.length);
+        whiteOccupancy = other.whiteOccupancy;
+        blackOccupancy = other.blackOccupancy;
+        occupiedAll = other.occupiedAll;
+        whiteKingSideCastling = other.whiteKingSideCastling;
+        whiteQueenSideCastling = other.whiteQueenSideCastling;
+        blackKingSideCastling = other.blackKingSideCastling;
+        blackQueenSideCastling = other.blackQueenSideCastling;
+        fullMoves = other.fullMoves;
+        halfMoveClock = other.halfMoveClock;
+        activeColour = other.activeColour;
+        enPassantTarget = other.enPassantTarget;
+        zobristHash = other.zobristHash;
+        ply = other.ply;
+        moveHistory = other.moveHistory.clone();
+        irreversibleHistory = other.irreversibleHistory.clone();
+        zobristHistory = other.zobristHistory.clone();
     }
 
     /**
@@ -64,6 +122,32 @@ public class BoardState {
         return bitboards;
     }
 
+    /**
+     * Returns the squares occupied by the pieces of the colour.
+     * @param colour colour of the pieces
+     * @return occupancy bitboard
+     */
+    public long getOccupancy(boolean colour) {
+        return colour == ChessConstants.WHITE ? whiteOccupancy : blackOccupancy;
+    }
+
+    /**
+     * Returns the squares occupied by any piece.
+     * @return occupancy bitboard
+     */
+    public long getOccupiedAll() {
+        return occupiedAll;
+    }
+
+    /**
+     * Returns which piece stands on the square.
+     * @param square LERF offset index of the square
+     * @return key of the piece, -1 if the square is empty
+     */
+    public int getPieceOnSquare(int square) {
+        return mailbox[square];
+    }
+
     /**
      * Returns if king side castling for white is allowed.
      * @return true if king side castling for white is allowed, false otherwise
@@ -136,7 +220,18 @@ public class BoardState {
         return enPassantTarget;
     }
 
-    public Stack<Move> getPreviousMoves() {
+    /**
+     * Returns the moves made since the position was loaded, from the oldest to the most recent one. Null moves are
+     * skipped.
+     * @return list of moves
+     */
+    public List<Move> getPreviousMoves() {
+        List<Move> previousMoves = new ArrayList<>(ply);
+        for (int i = 0; i < ply; i++) {
+            if (moveHistory[i] != MoveEncoding.NO_MOVE) {
+                previousMoves.add(new Move(moveHistory[i]));
+            }
+        }
         return previousMoves;
     }
 
@@ -153,9 +248,6 @@ public class BoardState {
      * @param fen FEN string
      */
     public void loadFen(String fen) {
-        //reset the repetition map, because the board state changed completely
-        this.repetitionMap.clear();
-
         Arrays.fill(bitboards, 0L);
 
         String[] fenArr = fen.split(" ");
@@ -209,10 +301,13 @@ public class BoardState {
 
         //Fullmove Number
         fullMoves = Integer.parseInt(fenArr[5]);
-        lastMovedPieceIndex = -1;
-        previousMoves.clear();
 
+        //the history starts anew, because the board state changed completely
+        ply = 0;
+
+        calculateOccupancy();
         calculateZobrist();
+        zobristHistory[0] = zobristHash;
     }
 
     /**
@@ -532,28 +627,40 @@ public class BoardState {
      * <td style="text-align:center;"> queen-promo capture
      * </td></tr></tbody>
      */
-    public void makeMove(Move move){
-        //set last moved piece
-        lastMovedPieceIndex = move.getTo();
-
-        move.setOldWhiteKingSideCastling(whiteKingSideCastling);
-        move.setOldWhiteQueenSideCastling(whiteQueenSideCastling);
-        move.setOldBlackKingSideCastling(blackKingSideCastling);
-        move.setOldBlackQueenSideCastling(blackQueenSideCastling);
-        move.setOldFullMoves(fullMoves);
-        move.setOldHalfMoveClock(halfMoveClock);
-        move.setOldActiveColour(activeColour);
-        move.setOldEnPassantTarget(enPassantTarget);
+    public void makeMove(int move){
+        int piece = MoveEncoding.getPiece(move);
+        int from = MoveEncoding.getFrom(move);
+        int to = MoveEncoding.getTo(move);
+        int flags = MoveEncoding.getFlags(move);
+        int capturedPiece = MoveEncoding.getCapturedPiece(move);
+
+        //this "if" will run only on tests, move generation sets the captured piece
+        if ((flags & CAPTURE_FLAG) != 0 && capturedPiece == -1) {
+            if (flags == 5) {
+                capturedPiece = activeColour == ChessConstants.WHITE ? 6 : 0;
+            }
+            else {
+                capturedPiece = mailbox[to];
+            }
+            move = MoveEncoding.encode(piece, from, to, flags, capturedPiece);
+        }
+
+        //save what can't be recovered from the move
+        ensureHistoryCapacity();
+        int oldIrreversibleState = packIrreversibleState();
+        irreversibleHistory[ply] = oldIrreversibleState;
+        moveHistory[ply] = move;
+        ply++;
 
         //resolve the move
-        bitboardsRemovePiece(move.getPiece(), move.getFrom());
-        bitboardsAddPiece(move.getPiece(), move.getTo());
+        bitboardsRemovePiece(piece, from);
+        bitboardsAddPiece(piece, to);
 
         //clears en passant targets
         enPassantTarget = -1;
 
         //deal with halfmoves, resets when a pawn is moved or a unit is captured
-        if ((move.getFlags() & 4) != 0 || move.getPiece() == 0 || move.getPiece() == 6){
+        if ((flags & 4) != 0 || piece == 0 || piece == 6){
             halfMoveClock = 0;
         }
         else {
@@ -566,20 +673,20 @@ public class BoardState {
         }
 
         //update castling legality changes
-        whiteKingSideCastling = whiteKingSideCastling && move.getFrom() != 4 && move.getFrom() != 7 && move.getTo() != 7;
-        whiteQueenSideCastling = whiteQueenSideCastling && move.getFrom() != 4 && move.getFrom() != 0 && move.getTo() != 0;
-        blackKingSideCastling = blackKingSideCastling && move.getFrom() != 60 && move.getFrom() != 63 && move.getTo() != 63;
-        blackQueenSideCastling = blackQueenSideCastling && move.getFrom() != 60 && move.getFrom() != 56 && move.getTo() != 56;
+        whiteKingSideCastling = whiteKingSideCastling && from != 4 && from != 7 && to != 7;
+        whiteQueenSideCastling = whiteQueenSideCastling && from != 4 && from != 0 && to != 0;
+        blackKingSideCastling = blackKingSideCastling && from != 60 && from != 63 && to != 63;
+        blackQueenSideCastling = blackQueenSideCastling && from != 60 && from != 56 && to != 56;
 
         //handle the flags
         //due to their special nature, cases 1, 2, 3, and 5 are handled separately
-        switch (move.getFlags()) {
+        switch (flags) {
             //double pawn push
             case 1 -> {
                 if (activeColour == ChessConstants.WHITE)
-                    enPassantTarget = move.getTo() - 8;
+                    enPassantTarget = to - 8;
                 else
-                    enPassantTarget = move.getTo() + 8;
+                    enPassantTarget = to + 8;
 
                 if (noEpCapture()) {
                     enPassantTarget = -1;
@@ -612,44 +719,26 @@ public class BoardState {
             }
             //ep-capture
             case 5 -> {
-                //this "if" will run only on tests, move generation sets the captured piece index
-                if (move.getCapturedPieceIndex() == -1) {
-                    if (activeColour == ChessConstants.WHITE) {
-                        move.setCapturedPieceIndex(6);
-                    }
-                    else {
-                        move.setCapturedPieceIndex(0);
-                    }
-                }
                 if (activeColour == ChessConstants.WHITE) {
                     //Black pawns are on bitboard index 6
-                    bitboardsRemovePiece(6, move.getTo() - 8);
+                    bitboardsRemovePiece(6, to - 8);
                 } else {
                     //White pawns are on bitboard index 0
-                    bitboardsRemovePiece(0, move.getTo() + 8);
+                    bitboardsRemovePiece(0, to + 8);
                 }
             }
             //the other cases share a lot of functionality, so they're bundled together
             default -> {
                 //the move is a capture if the third flag is active
-                if ((move.getFlags() & CAPTURE_FLAG) != 0){
-                    //this "if" will run only on tests, move generation sets the captured piece index
-                    if (move.getCapturedPieceIndex() == -1){
-                        for (int i = ((activeColour == ChessConstants.WHITE) ? 6 : 0); i < ((activeColour == ChessConstants.WHITE) ? 11 : 5); i++){
-                            if ((bitboards[i] & (1L << move.getTo())) != 0){
-                                move.setCapturedPieceIndex(i);
-                                break;
-                            }
-                        }
-                    }
-                    bitboardsRemovePiece(move.getCapturedPieceIndex(), move.getTo());
+                if ((flags & CAPTURE_FLAG) != 0){
+                    bitboardsRemovePiece(capturedPiece, to);
                 }
 
                 //the move is a promotion if the fourth flag is active
-                if ((move.getFlags() & PROMOTION_FLAG) != 0){
-                    bitboardsRemovePiece(move.getPiece(), move.getTo());
+                if ((flags & PROMOTION_FLAG) != 0){
+                    bitboardsRemovePiece(piece, to);
                     //possible because the same ordering is used in the bitboards and flags
-                    bitboardsAddPiece(move.getPiece() + (move.getFlags() & 3) + 1, move.getTo());
+                    bitboardsAddPiece(piece + (flags & 3) + 1, to);
                 }
             }
         }
@@ -657,13 +746,17 @@ public class BoardState {
         //change active player
         activeColour = !activeColour;
 
-        zobristChangeMoveSpecial(move);
+        zobristChangeMoveSpecial(oldIrreversibleState);
 
-        //push the move onto the stack
-        previousMoves.push(move);
+        zobristHistory[ply] = zobristHash;
+    }
 
-        //add boardstate to repetition map
-        addToRepetition();
+    /**
+     * Executes the move, see <code>makeMove(int)</code>.
+     * @param move the move to be executed
+     */
+    public void makeMove(Move move){
+        makeMove(move.encode());
     }
 
     /**
@@ -694,49 +787,85 @@ public class BoardState {
     }
 
     /**
-     * Reverts the <code>BoardState</code> object to the state before the last move was made
+     * Makes a null move, passes the turn to the other side without moving anything. Used by the search for
+     * <a href="https://www.chessprogramming.org/Null_Move_Pruning">null move pruning</a>, so it must not be made when
+     * the side to move is in check. The en passant target is cleared and the half-move clock advances, the null move is
+     * stored into the history as <code>MoveEncoding.NO_MOVE</code> and repetitions aren't looked for across it. Must be
+     * undone with <code>unmakeNullMove</code>.
      */
-    public void unmakeLastMove(){
-        //remove the current boardstate from repetition map
-        this.removeFromRepetition();
+    public void makeNullMove() {
+        ensureHistoryCapacity();
+        int oldIrreversibleState = packIrreversibleState();
+        irreversibleHistory[ply] = oldIrreversibleState;
+        moveHistory[ply] = MoveEncoding.NO_MOVE;
+        ply++;
 
-        if (previousMoves.isEmpty()){
-            throw new IllegalStateException();
+        enPassantTarget = -1;
+        halfMoveClock++;
+        if (activeColour == ChessConstants.BLACK){
+            fullMoves++;
         }
+        activeColour = !activeColour;
 
-        //set local variables
-        Move move = previousMoves.pop();
+        zobristChangeMoveSpecial(oldIrreversibleState);
+        zobristHistory[ply] = zobristHash;
+    }
+
+    /**
+     * Reverts the last made null move, see <code>makeNullMove</code>.
+     */
+    public void unmakeNullMove() {
+        if (ply == 0 || moveHistory[ply - 1] != MoveEncoding.NO_MOVE){
+            throw new IllegalStateException();
+        }
 
-        //set last moved piece index
-        this.lastMovedPieceIndex = move.getTo();
+        ply--;
+        unpackIrreversibleState(irreversibleHistory[ply]);
+        activeColour = !activeColour;
+        if (activeColour == ChessConstants.BLACK){
+            fullMoves--;
+        }
+        zobristHash = zobristHistory[ply];
+    }
 
-        zobristChangeMoveSpecial(move);
+    /**
+     * Reverts the <code>BoardState</code> object to the state before the last move was made
+     */
+    public void unmakeLastMove(){
+        if (ply == 0){
+            throw new IllegalStateException();
+        }
 
-        this.whiteKingSideCastling = move.getOldWhiteKingSideCastling();
-        this.whiteQueenSideCastling = move.getOldWhiteQueenSideCastling();
-        this.blackKingSideCastling = move.getOldBlackKingSideCastling();
-        this.blackQueenSideCastling = move.getOldBlackQueenSideCastling();
-        this.halfMoveClock = move.getOldHalfMoveClock();
-        this.fullMoves = move.getOldFullMoves();
-        this.activeColour = move.getOldActiveColour();
-        this.enPassantTarget = move.getOldEnPassantTarget();
+        //set local variables
+        ply--;
+        int move = moveHistory[ply];
+        int piece = MoveEncoding.getPiece(move);
+        int from = MoveEncoding.getFrom(move);
+        int to = MoveEncoding.getTo(move);
+        int flags = MoveEncoding.getFlags(move);
+
+        unpackIrreversibleState(irreversibleHistory[ply]);
+        activeColour = !activeColour;
+        if (activeColour == ChessConstants.BLACK){
+            fullMoves--;
+        }
 
         //undo promotion if promotion
-        if ((move.getFlags() & PROMOTION_FLAG) != 0){
-            int promotedPiece = (activeColour == ChessConstants.WHITE ? 1 : 7)  + (move.getFlags() & 3);
-            bitboardsRemovePiece(promotedPiece, move.getTo());
+        if ((flags & PROMOTION_FLAG) != 0){
+            int promotedPiece = (activeColour == ChessConstants.WHITE ? 1 : 7)  + (flags & 3);
+            bitboardsRemovePiece(promotedPiece, to);
         }
         //else remove piece as usual
         else {
-            bitboardsRemovePiece(move.getPiece(), move.getTo());
+            bitboardsRemovePiece(piece, to);
         }
 
         //add piece back
-        bitboardsAddPiece(move.getPiece(), move.getFrom());
+        bitboardsAddPiece(piece, from);
 
 
         //undo king castle
-        if (move.getFlags() == 2){
+        if (flags == 2){
             //have to move the rooks to their new positions
             if (activeColour == ChessConstants.WHITE) {
                 //White king-side rook on the bitboard index 1 7th digit
@@ -750,7 +879,7 @@ public class BoardState {
         }
 
         //undo queen castle
-        if (move.getFlags() == 3){
+        if (flags == 3){
             //have to move the rooks to their new positions
             if (activeColour == ChessConstants.WHITE) {
                 //White queen-side rook on the bitboard index 1 0th digit
@@ -764,74 +893,96 @@ public class BoardState {
         }
 
         //undo capture
-        if ((move.getFlags() & CAPTURE_FLAG) != 0){
+        if ((flags & CAPTURE_FLAG) != 0){
             int epOffset = 0;
 
             //check if en passant
-            if (move.getFlags() == 5){
-                if (move.getOldActiveColour() == ChessConstants.WHITE){
+            if (flags == 5){
+                if (activeColour == ChessConstants.WHITE){
                     epOffset = -8;
                 } else {
                     epOffset = 8;
                 }
             }
 
-            bitboardsAddPiece(move.getCapturedPieceIndex(), move.getTo() + epOffset);
+            bitboardsAddPiece(MoveEncoding.getCapturedPiece(move), to + epOffset);
         }
+
+        //the hash was saved, so there is no need to undo the incremental changes
+        zobristHash = zobristHistory[ply];
     }
 
     /**
      * Changes zobrist castling, colour and ep.
-     * @param move the move being made or unmade
+     * @param oldIrreversibleState packed irreversible state before the move was made
      */
-    private void zobristChangeMoveSpecial(Move move) {
+    private void zobristChangeMoveSpecial(int oldIrreversibleState) {
         zobristHash ^= ZobristNumbers.getWhiteActive();
 
-        if (move.getOldEnPassantTarget() != -1)
-            zobristHash ^= ZobristNumbers.getEnPassant(move.getOldEnPassantTarget()%8);
+        int oldEnPassantTarget = ((oldIrreversibleState >>> EN_PASSANT_SHIFT) & EN_PASSANT_MASK) - 1;
+        if (oldEnPassantTarget != -1)
+            zobristHash ^= ZobristNumbers.getEnPassant(oldEnPassantTarget%8);
 
         if (enPassantTarget != -1)
             zobristHash ^= ZobristNumbers.getEnPassant(enPassantTarget%8);
 
-        if (move.getOldWhiteKingSideCastling() != whiteKingSideCastling)
+        if (((oldIrreversibleState & WHITE_KING_SIDE_CASTLING_BIT) != 0) != whiteKingSideCastling)
             zobristHash ^= ZobristNumbers.getCastling(0);
 
-        if (move.getOldWhiteQueenSideCastling() != whiteQueenSideCastling)
+        if (((oldIrreversibleState & WHITE_QUEEN_SIDE_CASTLING_BIT) != 0) != whiteQueenSideCastling)
             zobristHash ^= ZobristNumbers.getCastling(1);
 
-        if (move.getOldBlackKingSideCastling() != blackKingSideCastling)
+        if (((oldIrreversibleState & BLACK_KING_SIDE_CASTLING_BIT) != 0) != blackKingSideCastling)
             zobristHash ^= ZobristNumbers.getCastling(2);
 
-        if (move.getOldBlackQueenSideCastling() != blackQueenSideCastling)
+        if (((oldIrreversibleState & BLACK_QUEEN_SIDE_CASTLING_BIT) != 0) != blackQueenSideCastling)
             zobristHash ^= ZobristNumbers.getCastling(3);
     }
 
     /**
-     * Increments the repetition counter of the current boardstate in the repetition map.
+     * Packs the state which can't be recovered when unmaking a move into an int. Bits 0-3 are the castling rights,
+     * bits 4-10 the en passant target plus one and the rest is the half-move clock.
+     * @return packed state
      */
-    private void addToRepetition(){
-        if (!repetitionMap.containsKey(this.zobristHash)){
-            repetitionMap.put(this.zobristHash, 0);
-        }
-
-        repetitionMap.put(zobristHash, repetitionMap.get(zobristHash) + 1);
+    private int packIrreversibleState() {
+        int state = 0;
+        if (whiteKingSideCastling)
+            state |= WHITE_KING_SIDE_CASTLING_BIT;
+        if (whiteQueenSideCastling)
+            state |= WHITE_QUEEN_SIDE_CASTLING_BIT;
+        if (blackKingSideCastling)
+            state |= BLACK_KING_SIDE_CASTLING_BIT;
+        if (blackQueenSideCastling)
+            state |= BLACK_QUEEN_SIDE_CASTLING_BIT;
+        state |= (enPassantTarget + 1) << EN_PASSANT_SHIFT;
+        state |= halfMoveClock << HALF_MOVE_CLOCK_SHIFT;
+        return state;
     }
 
     /**
-     * Decrements the repetition counter of the current boardstate in the repetition map.
+     * Restores the state packed by <code>packIrreversibleState</code>.
+     * @param state packed state
      */
-    private void removeFromRepetition(){
-        if (!repetitionMap.containsKey(this.zobristHash) || repetitionMap.get(zobristHash) == 0){
-            System.out.printf("%s wasn't in the repetition map", this.getFEN());
-            throw new IllegalStateException("Board state wasn't in repetition map");
-        }
+    private void unpackIrreversibleState(int state) {
+        whiteKingSideCastling = (state & WHITE_KING_SIDE_CASTLING_BIT) != 0;
+        whiteQueenSideCastling = (state & WHITE_QUEEN_SIDE_CASTLING_BIT) != 0;
+        blackKingSideCastling = (state & BLACK_KING_SIDE_CASTLING_BIT) != 0;
+        blackQueenSideCastling = (state & BLACK_QUEEN_SIDE_CASTLING_BIT) != 0;
+        enPassantTarget = ((state >>> EN_PASSANT_SHIFT) & EN_PASSANT_MASK) - 1;
+        halfMoveClock = state >>> HALF_MOVE_CLOCK_SHIFT;
+    }
 
-        if (repetitionMap.get(zobristHash) == 1) {
-            repetitionMap.remove(zobristHash);
+    /**
+     * Grows the history arrays if there is no room for another move. Only happens in very long games.
+     */
+    private void ensureHistoryCapacity() {
+        if (ply + 1 < moveHistory.length) {
             return;
         }
-
-        repetitionMap.put(zobristHash, repetitionMap.get(zobristHash) - 1);
+        int newCapacity = moveHistory.length * 2;
+        moveHistory = Arrays.copyOf(moveHistory, newCapacity);
+        irreversibleHistory = Arrays.copyOf(irreversibleHistory, newCapacity);
+        zobristHistory = Arrays.copyOf(zobristHistory, newCapacity + 1);
     }
 
     /**
@@ -839,43 +990,100 @@ public class BoardState {
      * @return Returns true if the current position is a draw by the aforementioned rules, otherwise false
      */
     public boolean isDraw() {
-        if (repetitionMap.containsKey(zobristHash) && repetitionMap.get(zobristHash) >= 3) {
+        if (halfMoveClock >= 100) {
             return true;
         }
 
-        if (halfMoveClock >= 100) {
-            return true;
+        //a position can only repeat since the last irreversible move, and only with the same side to move. Positions
+        //before a null move don't count, the null move isn't a legal move
+        int repetitions = 1;
+        int earliestPly = Math.max(0, ply - halfMoveClock);
+        for (int i = ply - 2; i >= earliestPly; i -= 2) {
+            if (moveHistory[i + 1] == MoveEncoding.NO_MOVE || moveHistory[i] == MoveEncoding.NO_MOVE) {
+                break;
+            }
+            if (zobristHistory[i] == zobristHash && ++repetitions >= 3) {
+                return true;
+            }
         }
 
         return false;
     }
 
     /**
-     * Adds the piece to the bitboard. Adjusts the zobrist hash
+     * Adds the piece to the bitboard. Adjusts the zobrist hash, the occupancy and the mailbox
      * @param piece piece to be added
      * @param squareIndex square to which the piece will be added to
      */
     private void bitboardsAddPiece(int piece, int squareIndex) {
-        bitboards[piece] = bitboards[piece] | (1L << squareIndex);
+        long squareBitboard = 1L << squareIndex;
+        bitboards[piece] = bitboards[piece] | squareBitboard;
+        if (piece < 6) {
+            whiteOccupancy |= squareBitboard;
+        }
+        else {
+            blackOccupancy |= squareBitboard;
+        }
+        occupiedAll = whiteOccupancy | blackOccupancy;
+        mailbox[squareIndex] = (byte) piece;
         zobristHash ^= ZobristNumbers.getPieceOnTile(piece, squareIndex);
 
     }
 
     /**
-     * Removes the piece from the bitboard. Adjusts the zobrist hash
+     * Removes the piece from the bitboard. Adjusts the zobrist hash, the occupancy and the mailbox
      * @param piece piece to be removed
      * @param squareIndex square to which the piece will be removed from
      */
     private void bitboardsRemovePiece(int piece, int squareIndex) {
-        bitboards[piece] = bitboards[piece] & ~(1L << squareIndex);
+        long squareBitboard = 1L << squareIndex;
+        bitboards[piece] = bitboards[piece] & ~squareBitboard;
+        if (piece < 6) {
+            whiteOccupancy &= ~squareBitboard;
+        }
+        else {
+            blackOccupancy &= ~squareBitboard;
+        }
+        occupiedAll = whiteOccupancy | blackOccupancy;
+        //a captured piece is removed after the capturing piece was already added to its square
+        if (mailbox[squareIndex] == piece) {
+            mailbox[squareIndex] = -1;
+        }
         zobristHash ^= ZobristNumbers.getPieceOnTile(piece, squareIndex);
     }
 
     /**
-     * @return index of the tile to which the last moved piece was moved to
+     * Calculates and sets the occupancy and the mailbox from scratch
+     */
+    private void calculateOccupancy() {
+        whiteOccupancy = BoardFunctions.calculateOccupiedByColour(bitboards, ChessConstants.WHITE);
+        blackOccupancy = BoardFunctions.calculateOccupiedByColour(bitboards, ChessConstants.BLACK);
+        occupiedAll = whiteOccupancy | blackOccupancy;
+
+        Arrays.fill(mailbox, (byte) -1);
+        for (int i = 0; i < bitboards.length; i++) {
+            long bitboard = bitboards[i];
+            while (bitboard != 0) {
+                mailbox[Long.numberOfTrailingZeros(bitboard)] = (byte) i;
+                bitboard &= bitboard - 1;
+            }
+        }
+    }
+
+    /**
+     * @return the last made move, packed as described in <code>MoveEncoding</code>, <code>MoveEncoding.NO_MOVE</code>
+     * if no move was made since loading or the last move was a null move
+     */
+    public int getLastMove() {
+        return ply == 0 ? MoveEncoding.NO_MOVE : moveHistory[ply - 1];
+    }
+
+    /**
+     * @return index of the tile to which the last moved piece was moved to, -1 if no move was made since loading or
+     * the last move was a null move
      */
     public int getLastMovedPieceIndex() {
-        return lastMovedPieceIndex;
+        return ply == 0 || moveHistory[ply - 1] == MoveEncoding.NO_MOVE ? -1 : MoveEncoding.getTo(moveHistory[ply - 1]);
     }
 
     /**
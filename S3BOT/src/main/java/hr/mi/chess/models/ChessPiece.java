@@ -29,6 +29,8 @@ public enum ChessPiece {
     BLACK_QUEEN(10, ChessConstants.BLACK, new int[] {8, 1, -8, -1, 7, 9, -7, -9}, new int[] {8, 1, -8, -1, 7, 9, -7, -9}, new int[] {8, 1, -8, -1, 7, 9, -7, -9}, true, false),
     BLACK_KING(11, ChessConstants.BLACK, new int[] {8, 1, -8, -1, 7, 9, -7, -9}, new int[] {8, 1, -8, -1, 7, 9, -7, -9}, new int[] {8, 1, -8, -1, 7, 9, -7, -9}, false, false);
 
+    private static final ChessPiece[] BY_KEY = values();
+
     private final int key;
     private final boolean colour;
     private final int[] pushOffsets;
@@ -47,6 +49,15 @@ public enum ChessPiece {
         this.pawn = pawn;
     }
 
+    /**
+     * Returns the piece with the received key, the keys are the declaration order.
+     * @param key bitboard index of the piece
+     * @return the piece
+     */
+    public static ChessPiece getByKey(int key) {
+        return BY_KEY[key];
+    }
+
     public int getKey() {
         return key;
     }
@@ -3,7 +3,8 @@ package hr.mi.chess.models;
 import hr.mi.chess.util.ChessTranslator;
 
 /**
- * Represents a chess move
+ * Represents a chess move. The state needed to unmake the move is kept by <code>BoardState</code>, so a move can be
+ * freely shared and stored. Performance critical code uses the packed representation from <code>MoveEncoding</code>.
  * @author Matej Istuk
  */
 public class Move {
@@ -11,14 +12,6 @@ public class Move {
     private final int from;
     private final int to;
     private final int flags;
-    private boolean oldWhiteKingSideCastling;
-    private boolean oldWhiteQueenSideCastling;
-    private boolean oldBlackKingSideCastling;
-    private boolean oldBlackQueenSideCastling;
-    private int oldFullMoves;
-    private int oldHalfMoveClock;
-    private boolean oldActiveColour;
-    private int oldEnPassantTarget;
     private int capturedPieceIndex;
 
     /**
@@ -37,6 +30,25 @@ public class Move {
         this.capturedPieceIndex = -1;
     }
 
+    /**
+     * Creates a move from its packed representation, see <code>MoveEncoding</code>.
+     *
+     * @param encodedMove the packed move
+     */
+    public Move(int encodedMove) {
+        this(MoveEncoding.getPiece(encodedMove), MoveEncoding.getFrom(encodedMove), MoveEncoding.getTo(encodedMove), MoveEncoding.getFlags(encodedMove));
+        this.capturedPieceIndex = MoveEncoding.getCapturedPiece(encodedMove);
+    }
+
+    /**
+     * Returns the packed representation of the move, see <code>MoveEncoding</code>.
+     *
+     * @return the packed move
+     */
+    public int encode() {
+        return MoveEncoding.encode(piece, from, to, flags, capturedPieceIndex);
+    }
+
     /**
      * Returns which piece is moved.
      *
@@ -73,153 +85,6 @@ public class Move {
         return flags;
     }
 
-    //the following methods are used for reversing the move because some information is lost after making the move
-
-
-    /**
-     * Gets old white king side castling.
-     *
-     * @return the old white king side castling
-     */
-    public boolean getOldWhiteKingSideCastling() {
-        return oldWhiteKingSideCastling;
-    }
-
-    /**
-     * Sets old white king side castling.
-     *
-     * @param oldWhiteKingSideCastling the old white king side castling
-     */
-    public void setOldWhiteKingSideCastling(boolean oldWhiteKingSideCastling) {
-        this.oldWhiteKingSideCastling = oldWhiteKingSideCastling;
-    }
-
-    /**
-     * Gets old white queen side castling.
-     *
-     * @return the old white queen side castling
-     */
-    public boolean getOldWhiteQueenSideCastling() {
-        return oldWhiteQueenSideCastling;
-    }
-
-    /**
-     * Sets old white queen side castling.
-     *
-     * @param oldWhiteQueenSideCastling the old white queen side castling
-     */
-    public void setOldWhiteQueenSideCastling(boolean oldWhiteQueenSideCastling) {
-        this.oldWhiteQueenSideCastling = oldWhiteQueenSideCastling;
-    }
-
-    /**
-     * Gets old black king side castling.
-     *
-     * @return the old black king side castling
-     */
-    public boolean getOldBlackKingSideCastling() {
-        return oldBlackKingSideCastling;
-    }
-
-    /**
-     * Sets old black king side castling.
-     *
-     * @param oldBlackKingSideCastling the old black king side castling
-     */
-    public void setOldBlackKingSideCastling(boolean oldBlackKingSideCastling) {
-        this.oldBlackKingSideCastling = oldBlackKingSideCastling;
-    }
-
-    /**
-     * Gets old black queen side castling.
-     *
-     * @return the old black queen side castling
-     */
-    public boolean getOldBlackQueenSideCastling() {
-        return oldBlackQueenSideCastling;
-    }
-
-    /**
-     * Sets old black queen side castling.
-     *
-     * @param oldBlackQueenSideCastling the old black queen side castling
-     */
-    public void setOldBlackQueenSideCastling(boolean oldBlackQueenSideCastling) {
-        this.oldBlackQueenSideCastling = oldBlackQueenSideCastling;
-    }
-
-    /**
-     * Gets old full moves.
-     *
-     * @return the old full moves
-     */
-    public int getOldFullMoves() {
-        return oldFullMoves;
-    }
-
-    /**
-     * Sets old full moves.
-     *
-     * @param oldFullMoves the old full moves
-     */
-    public void setOldFullMoves(int oldFullMoves) {
-        this.oldFullMoves = oldFullMoves;
-    }
-
-    /**
-     * Gets old half move clock.
-     *
-     * @return the old half move clock
-     */
-    public int getOldHalfMoveClock() {
-        return oldHalfMoveClock;
-    }
-
-    /**
-     * Sets old half move clock.
-     *
-     * @param oldHalfMoveClock the old half move clock
-     */
-    public void setOldHalfMoveClock(int oldHalfMoveClock) {
-        this.oldHalfMoveClock = oldHalfMoveClock;
-    }
-
-    /**
-     * Gets old active colour.
-     *
-     * @return the old active colour
-     */
-    public boolean getOldActiveColour() {
-        return oldActiveColour;
-    }
-
-    /**
-     * Sets old active colour.
-     *
-     * @param oldActiveColour the old active colour
-     */
-    public void setOldActiveColour(boolean oldActiveColour) {
-        this.oldActiveColour = oldActiveColour;
-    }
-
-    /**
-     * Gets old en passant target.
-     *
-     * @return the old en passant target
-     */
-    public int getOldEnPassantTarget() {
-        return oldEnPassantTarget;
-    }
-
-    /**
-     * Sets old en passant target.
-     *
-     * @param oldEnPassantTarget the old en passant target
-     */
-    public void setOldEnPassantTarget(int oldEnPassantTarget) {
-        this.oldEnPassantTarget = oldEnPassantTarget;
-    }
-
     /**
      * Gets captured piece index.
      *
@@ -0,0 +1,134 @@
+package hr.mi.chess.models;
+
+/**
+ * Class offering static methods for the packed <code>int</code> representation of a move, used where moves are
+ * generated or stored in bulk and allocating a <code>Move</code> per move would be too expensive. The layout is:
+ * <ul>
+ *     <li>bits 0-5: from (LERF offset index)</li>
+ *     <li>bits 6-11: to (LERF offset index)</li>
+ *     <li>bits 12-15: flags, the same encoding as in <code>Move</code></li>
+ *     <li>bits 16-19: key of the moved piece</li>
+ *     <li>bits 20-23: key of the captured piece plus one, zero if nothing is captured</li>
+ * </ul>
+ * No legal move encodes to zero, so it is used as <code>NO_MOVE</code>. The lowest 16 bits alone are the short form of
+ * the move, used where space is tight (the transposition table), the pieces are recovered from the board.
+ * @author Matej Istuk
+ */
+public class MoveEncoding {
+    public static final int NO_MOVE = 0;
+
+    private static final int TO_SHIFT = 6;
+    private static final int FLAGS_SHIFT = 12;
+    private static final int PIECE_SHIFT = 16;
+    private static final int CAPTURED_SHIFT = 20;
+    private static final int SQUARE_MASK = 0x3F;
+    private static final int NIBBLE_MASK = 0xF;
+    private static final int SHORT_MOVE_MASK = 0xFFFF;
+
+    /**
+     * Packs the move into an int.
+     * @param piece key of the moved piece
+     * @param from from where the piece is moved (LERF offset index)
+     * @param to to where the piece is moved (LERF offset index)
+     * @param flags flags for encoding various types of moves
+     * @param capturedPiece key of the captured piece, -1 if there is none
+     * @return the packed move
+     */
+    public static int encode(int piece, int from, int to, int flags, int capturedPiece) {
+        return from
+                | (to << TO_SHIFT)
+                | (flags << FLAGS_SHIFT)
+                | (piece << PIECE_SHIFT)
+                | ((capturedPiece + 1) << CAPTURED_SHIFT);
+    }
+
+    /**
+     * @param move packed move
+     * @return key of the moved piece
+     */
+    public static int getPiece(int move) {
+        return (move >>> PIECE_SHIFT) & NIBBLE_MASK;
+    }
+
+    /**
+     * @param move packed move
+     * @return LERF offset index of the origin square
+     */
+    public static int getFrom(int move) {
+        return move & SQUARE_MASK;
+    }
+
+    /**
+     * @param move packed move
+     * @return LERF offset index of the destination square
+     */
+    public static int getTo(int move) {
+        return (move >>> TO_SHIFT) & SQUARE_MASK;
+    }
+
+    /**
+     * @param move packed move
+     * @return the move encoding flags
+     */
+    public static int getFlags(int move) {
+        return (move >>> FLAGS_SHIFT) & NIBBLE_MASK;
+    }
+
+    /**
+     * @param move packed move
+     * @return key of the captured piece, -1 if there is none
+     */
+    public static int getCapturedPiece(int move) {
+        return ((move >>> CAPTURED_SHIFT) & NIBBLE_MASK) - 1;
+    }
+
+    /**
+     * @param move packed move
+     * @return true if the move is a capture
+     */
+    public static boolean isCapture(int move) {
+        return (getFlags(move) & 4) != 0;
+    }
+
+    /**
+     * @param move packed move
+     * @return true if the move is a promotion
+     */
+    public static boolean isPromotion(int move) {
+        return (getFlags(move) & 8) != 0;
+    }
+
+    /**
+     * @param move packed move
+     * @return the short form of the move, only the from, to and flags
+     */
+    public static int toShortMove(int move) {
+        return move & SHORT_MOVE_MASK;
+    }
+
+    /**
+     * Restores the moved and captured piece of a short move from the board on which it is to be made. Doesn't check
+     * if the move is legal.
+     * @param shortMove short form of the move
+     * @param boardState board-state on which the move is to be made
+     * @return packed move, <code>NO_MOVE</code> if there is no piece on the origin square
+     */
+    public static int fromShortMove(int shortMove, BoardState boardState) {
+        int piece = boardState.getPieceOnSquare(getFrom(shortMove));
+        if (shortMove == NO_MOVE || piece == -1) {
+            return NO_MOVE;
+        }
+
+        int capturedPiece;
+        if (getFlags(shortMove) == 5) {
+            capturedPiece = piece < 6 ? 6 : 0;
+        }
+        else if (isCapture(shortMove)) {
+            capturedPiece = boardState.getPieceOnSquare(getTo(shortMove));
+        }
+        else {
+            capturedPiece = -1;
+        }
+        return shortMove | (piece << PIECE_SHIFT) | ((capturedPiece + 1) << CAPTURED_SHIFT);
+    }
+}
@@ -3,13 +3,11 @@ package hr.mi.chess.movegen;
 import hr.mi.chess.models.BoardState;
 import hr.mi.chess.models.ChessPiece;
 import hr.mi.chess.models.Move;
-import hr.mi.chess.movegen.helpers.BitboardUtil;
-import hr.mi.chess.movegen.helpers.Bitwise;
+import hr.mi.chess.models.MoveEncoding;
 import hr.mi.chess.movegen.helpers.MoveUtil;
 import hr.mi.chess.constants.ChessBoardConstants;
 import hr.mi.chess.constants.ChessConstants;
 import hr.mi.chess.constants.ChessPieceConstants;
-import hr.mi.chess.util.BoardFunctions;
 
 import java.util.*;
 
@@ -19,6 +17,10 @@ import java.util.*;
  * @author Matej Istuk
  */
 public class LegalMoveGenerator {
+    //which kinds of moves the generator produces
+    private static final int ALL_MOVES = 0;
+    private static final int CAPTURES = 1;
+    private static final int QUIETS = 2;
 
     /**
      * Generates a list of legal moves the active colour can make on the received boardstate.
@@ -26,31 +28,114 @@ public class LegalMoveGenerator {
      * @return List of Moves
      */
     public static List<Move> generateMoves(BoardState boardState) {
-        long pushMask = 0xFFFFFFFFFFFFFFFFL;
-        long captureMask = 0xFFFFFFFFFFFFFFFFL;
+        int[] moveBuffer = new int[ChessConstants.MAX_MOVES];
+        int moveCount = generateMoves(boardState, moveBuffer);
+
+        List<Move> moves = new ArrayList<>(moveCount);
+        for (int i = 0; i < moveCount; i++){
+            moves.add(new Move(moveBuffer[i]));
+        }
+        return moves;
+    }
+
+    /**
+     * Generates the legal moves the active colour can make on the received boardstate into the received buffer, packed
+     * as described in <code>MoveEncoding</code>. Allocates nothing, so the buffer should be owned by the caller and
+     * reused (one per ply when searching).
+     * @param boardState boardstate
+     * @param moves buffer into which the moves are written, must be at least <code>ChessConstants.MAX_MOVES</code> long
+     * @return number of moves written into the buffer
+     */
+    public static int generateMoves(BoardState boardState, int[] moves) {
+        return generate(boardState, moves, ALL_MOVES);
+    }
+
+    /**
+     * Generates only the legal captures (including capture-promotions and en passant) into the received buffer. Used
+     * by the quiescence search and the capture stage of move picking, which would otherwise discard the quiet moves.
+     * @param boardState boardstate
+     * @param moves buffer into which the moves are written, must be at least <code>ChessConstants.MAX_MOVES</code> long
+     * @return number of moves written into the buffer
+     */
+    public static int generateCaptures(BoardState boardState, int[] moves) {
+        return generate(boardState, moves, CAPTURES);
+    }
+
+    /**
+     * Generates only the legal non capturing moves (including castling and quiet promotions) into the received buffer.
+     * Together with <code>generateCaptures</code> it produces exactly the moves of <code>generateMoves</code>.
+     * @param boardState boardstate
+     * @param moves buffer into which the moves are written, must be at least <code>ChessConstants.MAX_MOVES</code> long
+     * @return number of moves written into the buffer
+     */
+    public static int generateQuiets(BoardState boardState, int[] moves) {
+        return generate(boardState, moves, QUIETS);
+    }
+
+    /**
+     * Checks if the king of the active colour is attacked, by looking from the king square with each piece type.
+     * @param boardState boardstate
+     * @return true if the active colour is in check
+     */
+    public static boolean isInCheck(BoardState boardState) {
+        long[] bitboards = boardState.getBitboards();
+        int enemyColourOffset = boardState.getActiveColour() == ChessConstants.WHITE ? 6 : 0;
+        int kingSquare = Long.numberOfTrailingZeros(bitboards[ChessPieceConstants.KING + 6 - enemyColourOffset]);
+        long occupancy = boardState.getOccupiedAll();
+        long enemyQueens = bitboards[ChessPieceConstants.QUEEN + enemyColourOffset];
+
+        return (MoveUtil.knightAttacks(kingSquare) & bitboards[ChessPieceConstants.KNIGHT + enemyColourOffset]) != 0
+                || (MoveUtil.pawnAttacks(boardState.getActiveColour(), kingSquare) & bitboards[ChessPieceConstants.PAWN + enemyColourOffset]) != 0
+                || (MoveUtil.rookAttacks(kingSquare, occupancy) & (bitboards[ChessPieceConstants.ROOK + enemyColourOffset] | enemyQueens)) != 0
+                || (MoveUtil.bishopAttacks(kingSquare, occupancy) & (bitboards[ChessPieceConstants.BISHOP + enemyColourOffset] | enemyQueens)) != 0;
+    }
+
+    /**
+     * Generates the legal moves of the requested kind into the received buffer.
+     * @param boardState boardstate
+     * @param moves buffer into which the moves are written
+     * @param kind <code>ALL_MOVES</code>, <code>CAPTURES</code> or <code>QUIETS</code>
+     * @return number of moves written into the buffer
+     */
+    private static int generate(BoardState boardState, int[] moves, int kind) {
+        long[] bitboards = boardState.getBitboards();
+        long friendlyOccupancy = boardState.getOccupancy(boardState.getActiveColour());
+        long enemyOccupancy = boardState.getOccupancy(boardState.getPassiveColour());
+        long occupancy = boardState.getOccupiedAll();
+        //restrict the targets to the requested kind of moves, the check and pin masks are applied on top of these
+        long kindPushMask = kind == CAPTURES ? 0L : kind == QUIETS ? ~enemyOccupancy : 0xFFFFFFFFFFFFFFFFL;
+        long kindCaptureMask = kind == QUIETS ? 0L : kind == CAPTURES ? enemyOccupancy : 0xFFFFFFFFFFFFFFFFL;
+        long pushMask = kindPushMask;
+        long captureMask = kindCaptureMask;
         List<ChessPiece> friendlyPieces = boardState.getActiveColour() ? ChessPieceConstants.WHITE_PIECES : ChessPieceConstants.BLACK_PIECES;
         List<ChessPiece> enemyPieces = boardState.getActiveColour() ? ChessPieceConstants.BLACK_PIECES : ChessPieceConstants.WHITE_PIECES;
+        ChessPiece king = friendlyPieces.get(ChessPieceConstants.KING);
+        long kingBitboard = bitboards[king.getKey()];
+        long enemyQueens = bitboards[enemyPieces.get(ChessPieceConstants.QUEEN).getKey()];
+        long enemyStraightSliders = bitboards[enemyPieces.get(ChessPieceConstants.ROOK).getKey()] | enemyQueens;
+        long enemyDiagonalSliders = bitboards[enemyPieces.get(ChessPieceConstants.BISHOP).getKey()] | enemyQueens;
 
-        List<Move> moves = new LinkedList<>();
+        int moveCount = 0;
 
         //generate king moves
-        long kingDangerSquares = MoveUtil.getKingDangerSquares(boardState.getBitboards(), boardState.getActiveColour());
-        moves.addAll(generateMovesForPiece(boardState, boardState.getBitboards()[friendlyPieces.get(ChessPieceConstants.KING).getKey()],friendlyPieces.get(ChessPieceConstants.KING), pushMask & ~kingDangerSquares, captureMask & ~kingDangerSquares));
+        long kingDangerSquares = MoveUtil.getKingDangerSquares(bitboards, boardState.getActiveColour(), occupancy);
+        moveCount = generateMovesForPiece(boardState, kingBitboard, king, pushMask & ~kingDangerSquares, captureMask & ~kingDangerSquares, moves, moveCount);
 
         //check for check
         long checkers = 0L;
         long attackLine = 0L;
 
-        //check for check by non sliders
+        //check for check by non sliders, a leaper attacks the king iff the same leaper on the king square attacks it
+        int kingSquare = Long.numberOfTrailingZeros(kingBitboard);
         for (int index: ChessPieceConstants.NON_SLIDER_ATTACKERS){
-            long attackMask = MoveUtil.pieceCaptures(boardState.getBitboards(), friendlyPieces.get(index), boardState.getBitboards()[friendlyPieces.get(ChessPieceConstants.KING).getKey()]);
-            checkers |= attackMask & boardState.getBitboards()[enemyPieces.get(index).getKey()];
+            long attackMask = MoveUtil.leaperAttacks(friendlyPieces.get(index), kingSquare);
+            checkers |= attackMask & bitboards[enemyPieces.get(index).getKey()];
         }
 
         //check for check by sliders
         for (int offset: ChessPieceConstants.COMPASS_ROSE){
-            long attackMask = MoveUtil.getMoveLine(boardState.getBitboards(), boardState.getBitboards()[friendlyPieces.get(ChessPieceConstants.KING).getKey()], offset, boardState.getActiveColour());
-            long newCheckers = attackMask & BoardFunctions.calculateOccupiedByIndexes(boardState.getBitboards(), ChessPieceConstants.POSSIBLE_ATTACKERS_BY_OFFSET.get(offset), boardState.getPassiveColour());
+            long attackMask = MoveUtil.getMoveLine(kingBitboard, offset, friendlyOccupancy, occupancy);
+            long newCheckers = attackMask & (isStraight(offset) ? enemyStraightSliders : enemyDiagonalSliders);
             checkers |= newCheckers;
 
             if (newCheckers != 0L){
@@ -63,47 +148,43 @@ public class LegalMoveGenerator {
 
         //only king moves are valid if there are more than one checkers
         if (numCheckers > 1){
-            return moves;
+            return moveCount;
         }
 
         //if there is one checker we can also evade by capturing it
         if (numCheckers == 1){
-            captureMask = checkers;
+            captureMask = checkers & kindCaptureMask;
 
-            ChessPiece checkingPiece = Objects.requireNonNull(BoardFunctions.getPieceByBitboard(boardState.getBitboards(), checkers));
+            ChessPiece checkingPiece = ChessPiece.getByKey(boardState.getPieceOnSquare(Long.numberOfTrailingZeros(checkers)));
             //if the checking piece is a slider, we can block it by standing in the way of the attack
             if (checkingPiece.isSliding()){
-                pushMask = attackLine;
+                pushMask = attackLine & kindPushMask;
             }
             else {
                 pushMask = 0;
             }
         }
         //if there are no checkers, the king can castle
-        else {
-            moves.addAll(generateCastlingMoves(boardState, kingDangerSquares, BoardFunctions.calculateOccupiedAll(boardState.getBitboards())));
+        else if (kind != CAPTURES) {
+            moveCount = generateCastlingMoves(boardState, kingDangerSquares, occupancy, moves, moveCount);
         }
 
 
         //calculate pinned pieces and generate their moves
-        Set<Long> pinnedPieces = new HashSet<>();
+        long pinnedPieces = 0L;
         for (int offset: ChessPieceConstants.COMPASS_ROSE) {
-            long attackMaskFromKing = MoveUtil.getMoveLine(boardState.getBitboards(), boardState.getBitboards()[friendlyPieces.get(ChessPieceConstants.KING).getKey()], offset, boardState.getPassiveColour());
-            long potentialAttackers = 0L;
-            for (int potentialAttacker : ChessPieceConstants.POSSIBLE_ATTACKERS_BY_OFFSET.get(-offset)) {
-                potentialAttackers |= boardState.getBitboards()[enemyPieces.get(potentialAttacker).getKey()];
-            }
-            long attackMaskFromAttacker = MoveUtil.getMoveLine(boardState.getBitboards(), potentialAttackers, -offset, boardState.getPassiveColour());
+            long attackMaskFromKing = MoveUtil.getMoveLine(kingBitboard, offset, enemyOccupancy, occupancy);
+            long potentialAttackers = isStraight(offset) ? enemyStraightSliders : enemyDiagonalSliders;
+            long attackMaskFromAttacker = MoveUtil.getMoveLine(potentialAttackers, -offset, enemyOccupancy, occupancy);
             long pinnedBitboard = attackMaskFromKing & attackMaskFromAttacker & ~(attackLine);
 
             if (pinnedBitboard != 0) {
-                pinnedPieces.add(pinnedBitboard);
-                ChessPiece pinnedPiece = BoardFunctions.getPieceByBitboard(boardState.getBitboards(), pinnedBitboard);
-                assert pinnedPiece != null;
+                pinnedPieces |= pinnedBitboard;
+                ChessPiece pinnedPiece = ChessPiece.getByKey(boardState.getPieceOnSquare(Long.numberOfTrailingZeros(pinnedBitboard)));
 
-                long pinnedLine = MoveUtil.getMoveLine(boardState.getBitboards(), pinnedBitboard, offset, boardState.getActiveColour()) | MoveUtil.getMoveLine(boardState.getBitboards(), pinnedBitboard, -offset, boardState.getActiveColour());
+                long pinnedLine = MoveUtil.getMoveLine(pinnedBitboard, offset, friendlyOccupancy, occupancy) | MoveUtil.getMoveLine(pinnedBitboard, -offset, friendlyOccupancy, occupancy);
 
-                moves.addAll(generateMovesForPiece(boardState, pinnedBitboard, pinnedPiece, pushMask & pinnedLine, captureMask & pinnedLine));
+                moveCount = generateMovesForPiece(boardState, pinnedBitboard, pinnedPiece, pushMask & pinnedLine, captureMask & pinnedLine, moves, moveCount);
             }
 
         }
@@ -111,17 +192,23 @@ public class LegalMoveGenerator {
         //calculate moves for non pinned pieces, except the king
         for (int i = 0; i < ChessPieceConstants.KING; i++){
             ChessPiece piece = friendlyPieces.get(i);
-            long localPushMask = pushMask;
-            long localCaptureMask = captureMask;
-            BitboardUtil.forEachOneBit(boardState.getBitboards()[piece.getKey()], bitIndex -> {
-                long pieceBitboard = 1L << bitIndex;
-                if (!pinnedPieces.contains(pieceBitboard)) {
-                    moves.addAll(generateMovesForPiece(boardState, pieceBitboard, piece, localPushMask, localCaptureMask));
-                }
-            });
+            long pieces = bitboards[piece.getKey()] & ~pinnedPieces;
+            while (pieces != 0L){
+                long pieceBitboard = Long.highestOneBit(pieces);
+                pieces &= ~pieceBitboard;
+                moveCount = generateMovesForPiece(boardState, pieceBitboard, piece, pushMask, captureMask, moves, moveCount);
+            }
         }
 
-        return moves;
+        return moveCount;
+    }
+
+    /**
+     * @param offset offset from the compass rose
+     * @return true if the offset is along a rank or file, false if it is diagonal
+     */
+    private static boolean isStraight(int offset) {
+        return offset == ChessBoardConstants.NORTH || offset == ChessBoardConstants.SOUTH || offset == ChessBoardConstants.EAST || offset == ChessBoardConstants.WEST;
     }
 
     /**
@@ -131,15 +218,19 @@ public class LegalMoveGenerator {
      * @param piece which type of piece is being moved
      * @param pushMask bitboard of where the piece can potentially push to (mostly all ones, but necessary in case of check)
      * @param captureMask bitboard of where the piece can capture (mostly all ones, but necessary in case of check)
-     * @return List of legal Moves
+     * @param moves buffer into which the moves are written
+     * @param moveCount number of moves already in the buffer
+     * @return number of moves in the buffer after adding the moves of the piece
      */
-    private static List<Move> generateMovesForPiece(BoardState boardState, long pieceBitboard, ChessPiece piece, long pushMask, long captureMask) {
-        List<Move> moves = new ArrayList<>();
-        int originOffset = Bitwise.findIndexOfMS1B(pieceBitboard);
+    private static int generateMovesForPiece(BoardState boardState, long pieceBitboard, ChessPiece piece, long pushMask, long captureMask, int[] moves, int moveCount) {
+        int originOffset = Long.numberOfTrailingZeros(pieceBitboard);
+        int pieceKey = piece.getKey();
+        long friendlyOccupancy = boardState.getOccupancy(piece.getColour());
+        long occupancy = boardState.getOccupiedAll();
 
         if (piece.isPawn()){
-            long legalPushes = MoveUtil.piecePushes(boardState.getBitboards(), piece, pieceBitboard) & pushMask;
-            long legalCaptures = MoveUtil.pieceCaptures(boardState.getBitboards(), piece, pieceBitboard);
+            long legalPushes = MoveUtil.pawnPushes(piece.getColour(), originOffset, occupancy) & pushMask;
+            long legalCaptures = MoveUtil.pawnAttacks(piece.getColour(), originOffset);
             long epCapture = 0L;
 
             //epCapture only allowed if the new pawn position is in the push mask and the captured pawn is in the capture mask
@@ -151,95 +242,78 @@ public class LegalMoveGenerator {
                 }
             }
 
-            legalCaptures = legalCaptures & captureMask & BoardFunctions.calculateOccupiedByColour(boardState.getBitboards(), boardState.getPassiveColour());
+            legalCaptures = legalCaptures & captureMask & boardState.getOccupancy(!piece.getColour());
 
-            BitboardUtil.forEachOneBit(legalPushes, bitIndex -> {
-                int flag = 0;
+            while (legalPushes != 0L){
+                int bitIndex = 63 - Long.numberOfLeadingZeros(legalPushes);
+                legalPushes &= ~(1L << bitIndex);
                 boolean promotion = bitIndex < 8 || bitIndex >= 56;
 
                 if (promotion){
-                    flag |= 8;
                     for (int i = 0; i < 4; i++){
-                        moves.add(new Move(piece.getKey(), originOffset, bitIndex, flag | i));
+                        moves[moveCount++] = MoveEncoding.encode(pieceKey, originOffset, bitIndex, 8 | i, -1);
                     }
                 }
                 else {
-                    if (Math.abs(originOffset - bitIndex) != ChessBoardConstants.NORTH){
-                        flag = 1;
-                    }
-                    moves.add(new Move(piece.getKey(), originOffset, bitIndex, flag));
+                    int flag = Math.abs(originOffset - bitIndex) != ChessBoardConstants.NORTH ? 1 : 0;
+                    moves[moveCount++] = MoveEncoding.encode(pieceKey, originOffset, bitIndex, flag, -1);
                 }
-            });
+            }
 
-            BitboardUtil.forEachOneBit(legalCaptures, bitIndex -> {
-                int flag = 4;
+            while (legalCaptures != 0L){
+                int bitIndex = 63 - Long.numberOfLeadingZeros(legalCaptures);
+                legalCaptures &= ~(1L << bitIndex);
                 boolean promotion = bitIndex < 8 || bitIndex >= 56;
+                int capturedPiece = boardState.getPieceOnSquare(bitIndex);
 
                 if (promotion){
-                    flag |= 8;
                     for (int i = 0; i < 4; i++){
-                        moves.add(new Move(piece.getKey(), originOffset, bitIndex, flag | i));
+                        moves[moveCount++] = MoveEncoding.encode(pieceKey, originOffset, bitIndex, 12 | i, capturedPiece);
                     }
                 }
                 else {
-                    moves.add(new Move(piece.getKey(), originOffset, bitIndex, flag));
+                    moves[moveCount++] = MoveEncoding.encode(pieceKey, originOffset, bitIndex, 4, capturedPiece);
                 }
-            });
+            }
 
             if (epCapture != 0){
-                int epCaptureIndex = Bitwise.findIndexOfMS1B(epCapture);
+                long[] bitboards = boardState.getBitboards();
+                int epCaptureIndex = Long.numberOfTrailingZeros(epCapture);
                 //check for discovered check
                 int colourOffset = boardState.getActiveColour() == ChessConstants.WHITE ? 0 : 6;
                 int pawnEpOffset = boardState.getActiveColour() == ChessConstants.WHITE ? ChessBoardConstants.SOUTH : ChessBoardConstants.NORTH;
 
-                //first we must remove the captured and capturing pawn
-                boardState.getBitboards()[ChessPieceConstants.PAWN + colourOffset] &= ~pieceBitboard;
-                boardState.getBitboards()[ChessPieceConstants.PAWN + 6 - colourOffset] &= ~(1L << (epCaptureIndex + pawnEpOffset));
-
-                //then calculate the new king danger squares
-                long kingBitmask = boardState.getBitboards()[ChessPieceConstants.KING + colourOffset];
-                long kingDangerSquares = MoveUtil.getMoveLine(boardState.getBitboards(), kingBitmask, ChessBoardConstants.EAST, piece.getColour());
-                kingDangerSquares |= MoveUtil.getMoveLine(boardState.getBitboards(), kingBitmask, ChessBoardConstants.WEST, piece.getColour());
-
-                //then return the pieces
-                boardState.getBitboards()[ChessPieceConstants.PAWN + colourOffset] |= pieceBitboard;
-                boardState.getBitboards()[ChessPieceConstants.PAWN + 6 - colourOffset] |= (1L << (epCaptureIndex + pawnEpOffset));
+                //the captured and capturing pawn both leave the rank of the king, the rest of the board stays the same
+                long removedPawns = pieceBitboard | (1L << (epCaptureIndex + pawnEpOffset));
+                long kingBitmask = bitboards[ChessPieceConstants.KING + colourOffset];
+                long kingDangerSquares = MoveUtil.getMoveLine(kingBitmask, ChessBoardConstants.EAST, friendlyOccupancy & ~removedPawns, occupancy & ~removedPawns);
+                kingDangerSquares |= MoveUtil.getMoveLine(kingBitmask, ChessBoardConstants.WEST, friendlyOccupancy & ~removedPawns, occupancy & ~removedPawns);
 
                 //the only pieces that can check the king after an en passant are the rook and queen, so we check if they can now see the king
-                if ((kingDangerSquares & boardState.getBitboards()[ChessPieceConstants.ROOK + 6 - colourOffset]) == 0 && (kingDangerSquares & boardState.getBitboards()[ChessPieceConstants.QUEEN + 6 - colourOffset]) == 0){
-                    moves.add(new Move(piece.getKey(), originOffset, epCaptureIndex, 5));
+                if ((kingDangerSquares & bitboards[ChessPieceConstants.ROOK + 6 - colourOffset]) == 0 && (kingDangerSquares & bitboards[ChessPieceConstants.QUEEN + 6 - colourOffset]) == 0){
+                    moves[moveCount++] = MoveEncoding.encode(pieceKey, originOffset, epCaptureIndex, 5, ChessPieceConstants.PAWN + 6 - colourOffset);
                 }
             }
         }
         else {
-            long legalPieceMoves = MoveUtil.pieceMoves(boardState.getBitboards(), piece, pieceBitboard) & (pushMask | captureMask);
-            long enemyPieces = BoardFunctions.calculateOccupiedByColour(boardState.getBitboards(), !piece.getColour());
+            long pieceMoves = piece.isSliding() ? MoveUtil.slidingAttacks(piece, originOffset, occupancy) : MoveUtil.leaperAttacks(piece, originOffset);
+            long legalPieceMoves = pieceMoves & ~friendlyOccupancy & (pushMask | captureMask);
 
-            BitboardUtil.forEachOneBit(legalPieceMoves, bitIndex -> {
-                int flag = 0;
+            while (legalPieceMoves != 0L){
+                int bitIndex = 63 - Long.numberOfLeadingZeros(legalPieceMoves);
+                legalPieceMoves &= ~(1L << bitIndex);
+                int capturedPiece = boardState.getPieceOnSquare(bitIndex);
                 //if move is a capture
-                if ((enemyPieces & (1L << bitIndex)) != 0){
-                    flag = 4;
+                if (capturedPiece != -1){
+                    moves[moveCount++] = MoveEncoding.encode(pieceKey, originOffset, bitIndex, 4, capturedPiece);
                 }
-                moves.add(new Move(piece.getKey(), originOffset, bitIndex, flag));
-            });
-        }
-
-        int activeColourOffset = boardState.getActiveColour() == ChessConstants.WHITE ? 6 : 0;
-        for (Move move: moves) {
-            if (move.isEp()) {
-                move.setCapturedPieceIndex(activeColourOffset);
-            }
-            else if (move.isCapture()){
-                for (int i = activeColourOffset; i < (5 + activeColourOffset); i++) {
-                    if ((boardState.getBitboards()[i] & (1L << move.getTo())) != 0) {
-                        move.setCapturedPieceIndex(i);
-                    }
+                else {
+                    moves[moveCount++] = MoveEncoding.encode(pieceKey, originOffset, bitIndex, 0, -1);
                 }
             }
         }
 
-        return moves;
+        return moveCount;
     }
 
     /**
@@ -247,28 +321,28 @@ public class LegalMoveGenerator {
      * @param boardState boardstate
      * @param kingDangerSquares bitmap of squares which the king cannot cross
      * @param occupiedSquares which squares are occupied
-     * @return List of legal castling Moves
+     * @param moves buffer into which the moves are written
+     * @param moveCount number of moves already in the buffer
+     * @return number of moves in the buffer after adding the legal castling moves
      */
-    private static List<Move> generateCastlingMoves (BoardState boardState, long kingDangerSquares, long occupiedSquares){
-        List<Move> moves = new ArrayList<>();
-
+    private static int generateCastlingMoves (BoardState boardState, long kingDangerSquares, long occupiedSquares, int[] moves, int moveCount){
         if (boardState.getActiveColour() == ChessConstants.WHITE){
             if (boardState.isWhiteKingSideCastling() && (occupiedSquares & ChessBoardConstants.WHITE_KING_SIDE_CASTLING_MASK_BLOCKERS) == 0 && (kingDangerSquares & ChessBoardConstants.WHITE_KING_SIDE_CASTLING_MASK_ATTACKED_SQUARES) == 0){
-                moves.add(new Move(ChessPiece.WHITE_KING.getKey(), 4, 6, 2));
+                moves[moveCount++] = MoveEncoding.encode(ChessPiece.WHITE_KING.getKey(), 4, 6, 2, -1);
             }
             if (boardState.isWhiteQueenSideCastling() && (occupiedSquares & ChessBoardConstants.WHITE_QUEEN_SIDE_CASTLING_MASK_BLOCKERS) == 0 && (kingDangerSquares & ChessBoardConstants.WHITE_QUEEN_SIDE_CASTLING_MASK_ATTACKED_SQUARES) == 0){
-                moves.add(new Move(ChessPiece.WHITE_KING.getKey(), 4, 2, 3));
+                moves[moveCount++] = MoveEncoding.encode(ChessPiece.WHITE_KING.getKey(), 4, 2, 3, -1);
             }
         }
         else {
             if (boardState.isBlackKingSideCastling() && (occupiedSquares & ChessBoardConstants.BLACK_KING_SIDE_CASTLING_MASK_BLOCKERS) == 0 && (kingDangerSquares & ChessBoardConstants.BLACK_KING_SIDE_CASTLING_MASK_ATTACKED_SQUARES) == 0){
-                moves.add(new Move(ChessPiece.BLACK_KING.getKey(), 60, 62, 2));
+                moves[moveCount++] = MoveEncoding.encode(ChessPiece.BLACK_KING.getKey(), 60, 62, 2, -1);
             }
             if (boardState.isBlackQueenSideCastling() && (occupiedSquares & ChessBoardConstants.BLACK_QUEEN_SIDE_CASTLING_MASK_BLOCKERS) == 0 && (kingDangerSquares & ChessBoardConstants.BLACK_QUEEN_SIDE_CASTLING_MASK_ATTACKED_SQUARES) == 0){
-                moves.add(new Move(ChessPiece.BLACK_KING.getKey(), 60, 58, 3));
+                moves[moveCount++] = MoveEncoding.encode(ChessPiece.BLACK_KING.getKey(), 60, 58, 3, -1);
             }
         }
 
-        return moves;
+        return moveCount;
     }
 }
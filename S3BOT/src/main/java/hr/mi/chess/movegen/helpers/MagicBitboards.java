@@ -0,0 +1,123 @@
+package hr.mi.chess.movegen.helpers;
+
+import hr.mi.chess.models.ChessPiece;
+import hr.mi.support.StaticPieceMovesGenerator;
+
+/**
+ * Class holding precomputed attack tables for sliding pieces, indexed by
+ * <a href="https://www.chessprogramming.org/Magic_Bitboards">magic bitboards</a>. For every square, the relevant
+ * blockers (occupancy masked by the rays of the piece, excluding the board edges) are multiplied by the magic number
+ * of the square, and the upper bits of the product are used as the index into the attack table of the square.
+ * <p>
+ *     The magic numbers were found with <code>StaticPieceMovesGenerator</code> (its main method with the "magics"
+ *     argument prints them again), the tables are filled on class initialisation.
+ * </p>
+ * @author Matej Istuk
+ */
+public class MagicBitboards {
+    private static final long[] ROOK_MAGICS = {
+            0x0080008020400019L, 0x454000A004500044L, 0x4300104300200008L, 0x0880080004811000L,
+            0x4100080100040210L, 0xF200040108020010L, 0x040002211000A408L, 0x0200020020440081L,
+            0x0220801182A04000L, 0x2081804000200080L, 0x0008801000802000L, 0x3424800800100182L,
+            0x0611800402811800L, 0x000E000428820010L, 0x360D004C01000200L, 0x0006000C00804306L,
+            0x0C80004000200048L, 0x2000520022010081L, 0x0120008020881002L, 0x4208008080081000L,
+            0x0240808004000801L, 0x0404008004020080L, 0x0100040090080241L, 0x1010020000410084L,
+            0x0840004080008020L, 0x0000200040100040L, 0xA024100880200080L, 0x2201002100100008L,
+            0x2000080100041100L, 0x2204000202001008L, 0xC000100400010802L, 0x0980039200204409L,
+            0x001040002A800080L, 0x000082C002802010L, 0x0010002800200400L, 0x4001002009001000L,
+            0x060A800802800400L, 0x1002000280800400L, 0x2031000401000200L, 0x0400800040800100L,
+            0x0014914002608000L, 0x0001402010014000L, 0x0010002804002000L, 0x021040100A020020L,
+            0x1002040801010010L, 0x0201004400490002L, 0x5401000A00190004L, 0x0100008044020031L,
+            0x8201C00080002380L, 0x0040802000400380L, 0x0080102000410100L, 0x400C082100100100L,
+            0x0000040008008080L, 0x4010020080040080L, 0x02010002000C0500L, 0x8010010400408200L,
+            0x0002004020148102L, 0x23C90010C0022181L, 0x1020100900402001L, 0x80001000218D0029L,
+            0x0042009044086002L, 0x0082002850010482L, 0x89001812011020A4L, 0x1848190080240842L
+    };
+    private static final long[] BISHOP_MAGICS = {
+            0x0004500200540880L, 0x2110910805004005L, 0x1088480850800002L, 0x0004410220040000L,
+            0x1286121001880802L, 0x2009012840084821L, 0x0100841008041000L, 0x1042240058141001L,
+            0x0600041004010410L, 0x0000600280810106L, 0x0420105400604008L, 0x1200044040820120L,
+            0x1000040420000402L, 0x8000011022100120L, 0x000444108404A001L, 0x2005003401045000L,
+            0x0004040808080821L, 0x207000080108048AL, 0x0450030102520140L, 0x0001040804110460L,
+            0x0001000490400001L, 0x0002040240500400L, 0x0800640208042C01L, 0x048040010C008401L,
+            0x000C335024101000L, 0x2202118108010810L, 0x00880800050A10A0L, 0x10020800040040C8L,
+            0x00008400D0802020L, 0x1208020400220100L, 0x390AE68002080400L, 0x6000842001010804L,
+            0x2006203000545063L, 0x00210420C0100100L, 0x1005080200410407L, 0x0104C00A000C2200L,
+            0x00200102400401C0L, 0x0210008420020209L, 0x4082024401144404L, 0x2882020200405041L,
+            0x00040104102142C0L, 0x008048024800102CL, 0x0400940028000400L, 0x10E002C010404203L,
+            0x00C2080100421C00L, 0x0222200424206100L, 0x2024300441D0C100L, 0x1001015101000208L,
+            0x8104020110890099L, 0x2101008861080000L, 0x8800204200900001L, 0x0100010210440020L,
+            0x80100851120A0181L, 0x0010080808182288L, 0x0004081081020040L, 0x0008020400521000L,
+            0x4008202804100814L, 0x1022010400820846L, 0x1807000042009001L, 0x00900000112A0802L,
+            0x008D500204050400L, 0x2054090849100420L, 0x8000A4200C011210L, 0x2804011023071100L
+    };
+
+    private static final long[] ROOK_MASKS = new long[64];
+    private static final long[] BISHOP_MASKS = new long[64];
+    private static final int[] ROOK_SHIFTS = new int[64];
+    private static final int[] BISHOP_SHIFTS = new int[64];
+    private static final long[][] ROOK_ATTACKS = new long[64][];
+    private static final long[][] BISHOP_ATTACKS = new long[64][];
+
+    static {
+        int[] rookOffsets = ChessPiece.WHITE_ROOK.getCaptureOffsets();
+        int[] bishopOffsets = ChessPiece.WHITE_BISHOP.getCaptureOffsets();
+        for (int square = 0; square < 64; square++){
+            ROOK_MASKS[square] = StaticPieceMovesGenerator.generateRelevantOccupancyMask(square, rookOffsets);
+            ROOK_SHIFTS[square] = 64 - Long.bitCount(ROOK_MASKS[square]);
+            ROOK_ATTACKS[square] = fillAttackTable(square, ROOK_MASKS[square], ROOK_MAGICS[square], ROOK_SHIFTS[square], rookOffsets);
+
+            BISHOP_MASKS[square] = StaticPieceMovesGenerator.generateRelevantOccupancyMask(square, bishopOffsets);
+            BISHOP_SHIFTS[square] = 64 - Long.bitCount(BISHOP_MASKS[square]);
+            BISHOP_ATTACKS[square] = fillAttackTable(square, BISHOP_MASKS[square], BISHOP_MAGICS[square], BISHOP_SHIFTS[square], bishopOffsets);
+        }
+    }
+
+    /**
+     * Returns the squares attacked by a rook on the square.
+     * @param square LERF index of the rook
+     * @param occupancy bitboard of all occupied squares
+     * @return bitboard of attacked squares, including the first blocker in each direction
+     */
+    public static long rookAttacks(int square, long occupancy){
+        return ROOK_ATTACKS[square][(int) (((occupancy & ROOK_MASKS[square]) * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square])];
+    }
+
+    /**
+     * Returns the squares attacked by a bishop on the square.
+     * @param square LERF index of the bishop
+     * @param occupancy bitboard of all occupied squares
+     * @return bitboard of attacked squares, including the first blocker in each direction
+     */
+    public static long bishopAttacks(int square, long occupancy){
+        return BISHOP_ATTACKS[square][(int) (((occupancy & BISHOP_MASKS[square]) * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square])];
+    }
+
+    /**
+     * Fills the attack table of one square by enumerating every subset of the relevant occupancy mask.
+     * @param square LERF index of the square
+     * @param mask relevant occupancy mask of the square
+     * @param magic magic number of the square
+     * @param shift shift of the square
+     * @param offsets sliding offsets of the piece
+     * @return the attack table
+     * @throws IllegalStateException if the magic number maps two different attack sets to the same index
+     */
+    private static long[] fillAttackTable(int square, long mask, long magic, int shift, int[] offsets){
+        long[] table = new long[1 << (64 - shift)];
+
+        //enumerate all subsets of the mask (Carry-Rippler)
+        long subset = 0L;
+        do {
+            long attacks = StaticPieceMovesGenerator.generateSlidingAttacks(square, subset, offsets);
+            int index = (int) ((subset * magic) >>> shift);
+            if (table[index] != 0L && table[index] != attacks){
+                throw new IllegalStateException("Invalid magic number for square " + square);
+            }
+            table[index] = attacks;
+            subset = (subset - mask) & mask;
+        } while (subset != 0L);
+
+        return table;
+    }
+}
@@ -2,13 +2,12 @@ package hr.mi.chess.movegen.helpers;
 
 import hr.mi.chess.models.ChessPiece;
 import hr.mi.chess.util.BoardFunctions;
-import hr.mi.chess.movegen.helpers.implementations.MoveOffsetGetters;
 import hr.mi.chess.constants.ChessBoardConstants;
 import hr.mi.chess.constants.ChessConstants;
 import hr.mi.chess.constants.ChessPieceConstants;
+import hr.mi.support.StaticPieceMovesGenerator;
 
 import java.util.List;
-import java.util.function.LongUnaryOperator;
 
 /**
  * Utility class containing various methods for extracting bitboards of possible moves for a given chess boardstate.
@@ -31,6 +30,171 @@ import java.util.function.LongUnaryOperator;
  * @author Matej Istuk
  */
 public class MoveUtil {
+    /**
+     * Empty board rays, indexed by [offset + 9][square]
+     */
+    private static final long[][] RAYS = new long[19][64];
+
+    static {
+        for (int offset: ChessPieceConstants.COMPASS_ROSE){
+            for (int square = 0; square < 64; square++){
+                RAYS[offset + 9][square] = StaticPieceMovesGenerator.generateSlidingAttacks(square, 0L, new int[] {offset});
+            }
+        }
+    }
+
+    /**
+     * Returns the squares attacked by a rook on the square, in O(1) by the magic bitboard lookup.
+     * @param square LERF index of the rook
+     * @param occupancy bitboard of all occupied squares
+     * @return bitboard of attacked squares, including the first blocker in each direction
+     */
+    public static long rookAttacks(int square, long occupancy){
+        return MagicBitboards.rookAttacks(square, occupancy);
+    }
+
+    /**
+     * Returns the squares attacked by a bishop on the square, in O(1) by the magic bitboard lookup.
+     * @param square LERF index of the bishop
+     * @param occupancy bitboard of all occupied squares
+     * @return bitboard of attacked squares, including the first blocker in each direction
+     */
+    public static long bishopAttacks(int square, long occupancy){
+        return MagicBitboards.bishopAttacks(square, occupancy);
+    }
+
+    /**
+     * Returns the squares attacked by a queen on the square, in O(1) by the magic bitboard lookup.
+     * @param square LERF index of the queen
+     * @param occupancy bitboard of all occupied squares
+     * @return bitboard of attacked squares, including the first blocker in each direction
+     */
+    public static long queenAttacks(int square, long occupancy){
+        return MagicBitboards.rookAttacks(square, occupancy) | MagicBitboards.bishopAttacks(square, occupancy);
+    }
+
+    /**
+     * Returns the squares attacked by the sliding piece on the square.
+     * @param piece sliding piece (rook, bishop or queen of any colour)
+     * @param square LERF index of the piece
+     * @param occupancy bitboard of all occupied squares
+     * @return bitboard of attacked squares, including the first blocker in each direction
+     */
+    public static long slidingAttacks(ChessPiece piece, int square, long occupancy){
+        return switch (piece.getKey() % 6) {
+            case ChessPieceConstants.ROOK -> rookAttacks(square, occupancy);
+            case ChessPieceConstants.BISHOP -> bishopAttacks(square, occupancy);
+            case ChessPieceConstants.QUEEN -> queenAttacks(square, occupancy);
+            default -> throw new IllegalArgumentException("Not a sliding piece: " + piece);
+        };
+    }
+
+    /**
+     * Returns the squares attacked by a knight on the square.
+     * @param square LERF index of the knight
+     * @return bitboard of attacked squares
+     */
+    public static long knightAttacks(int square){
+        return ChessPieceConstants.KNIGHT_MOVES[square];
+    }
+
+    /**
+     * Returns the squares attacked by a king on the square.
+     * @param square LERF index of the king
+     * @return bitboard of attacked squares
+     */
+    public static long kingAttacks(int square){
+        return ChessPieceConstants.KING_MOVES[square];
+    }
+
+    /**
+     * Returns the squares attacked (diagonally) by a pawn on the square.
+     * @param colour colour of the pawn
+     * @param square LERF index of the pawn
+     * @return bitboard of attacked squares
+     */
+    public static long pawnAttacks(boolean colour, int square){
+        return colour == ChessConstants.WHITE ? ChessPieceConstants.WHITE_PAWN_CAPTURES[square] : ChessPieceConstants.BLACK_PAWN_CAPTURES[square];
+    }
+
+    /**
+     * Returns the single push square of a pawn on the square, regardless of occupancy.
+     * @param colour colour of the pawn
+     * @param square LERF index of the pawn
+     * @return bitboard of the push square
+     */
+    public static long pawnPushes(boolean colour, int square){
+        return colour == ChessConstants.WHITE ? ChessPieceConstants.WHITE_PAWN_PUSHES[square] : ChessPieceConstants.BLACK_PAWN_PUSHES[square];
+    }
+
+    /**
+     * Returns the double push square of a pawn on the square, regardless of occupancy, empty if the pawn isn't on its
+     * starting rank.
+     * @param colour colour of the pawn
+     * @param square LERF index of the pawn
+     * @return bitboard of the double push square
+     */
+    public static long pawnDoublePushes(boolean colour, int square){
+        return colour == ChessConstants.WHITE ? ChessPieceConstants.WHITE_PAWN_DOUBLE_PUSHES[square] : ChessPieceConstants.BLACK_PAWN_DOUBLE_PUSHES[square];
+    }
+
+    /**
+     * Returns the squares a pawn on the square can push to on the received occupancy, the double push only if the
+     * single push square is free.
+     * @param colour colour of the pawn
+     * @param square LERF index of the pawn
+     * @param occupancy bitboard of all occupied squares
+     * @return bitboard of the free push squares
+     */
+    public static long pawnPushes(boolean colour, int square, long occupancy){
+        long push = pawnPushes(colour, square) & ~occupancy;
+        if (push == 0L){
+            return 0L;
+        }
+        return push | (pawnDoublePushes(colour, square) & ~occupancy);
+    }
+
+    /**
+     * Returns the squares attacked by the non sliding piece on the square.
+     * @param piece pawn, knight or king of any colour
+     * @param square LERF index of the piece
+     * @return bitboard of attacked squares
+     */
+    public static long leaperAttacks(ChessPiece piece, int square){
+        return switch (piece.getKey() % 6) {
+            case ChessPieceConstants.PAWN -> pawnAttacks(piece.getColour(), square);
+            case ChessPieceConstants.KNIGHT -> knightAttacks(square);
+            case ChessPieceConstants.KING -> kingAttacks(square);
+            default -> throw new IllegalArgumentException("Not a non sliding piece: " + piece);
+        };
+    }
+
+    /**
+     * Returns the pieces of both colours which attack the square, on the received occupancy. Only pieces present in
+     * the occupancy are returned, and sliders see through the squares missing from it, so removing the pieces which
+     * already took part in an exchange on the square from the occupancy discovers the sliders behind them (x-rays).
+     * @param bitboards bitboard representation of a chessboard
+     * @param square LERF index of the attacked square
+     * @param occupancy bitboard of the occupied squares
+     * @return bitboard of the attacking pieces
+     */
+    public static long attacksTo(long[] bitboards, int square, long occupancy){
+        //keys of the black pieces follow the white ones
+        int black = 6;
+        long rooksQueens = bitboards[ChessPieceConstants.ROOK] | bitboards[ChessPieceConstants.QUEEN]
+                | bitboards[black + ChessPieceConstants.ROOK] | bitboards[black + ChessPieceConstants.QUEEN];
+        long bishopsQueens = bitboards[ChessPieceConstants.BISHOP] | bitboards[ChessPieceConstants.QUEEN]
+                | bitboards[black + ChessPieceConstants.BISHOP] | bitboards[black + ChessPieceConstants.QUEEN];
+
+        //a pawn attacks the square if a pawn of the other colour on the square would attack it
+        long attackers = (pawnAttacks(ChessConstants.BLACK, square) & bitboards[ChessPieceConstants.PAWN])
+                | (pawnAttacks(ChessConstants.WHITE, square) & bitboards[black + ChessPieceConstants.PAWN])
+                | (knightAttacks(square) & (bitboards[ChessPieceConstants.KNIGHT] | bitboards[black + ChessPieceConstants.KNIGHT]))
+                | (kingAttacks(square) & (bitboards[ChessPieceConstants.KING] | bitboards[black + ChessPieceConstants.KING]))
+                | (rookAttacks(square, occupancy) & rooksQueens)
+                | (bishopAttacks(square, occupancy) & bishopsQueens);
+        return attackers & occupancy;
+    }
 
     /**
      * Gets a bitmask of the possible moves in a line from an origin square.
@@ -42,7 +206,32 @@ public class MoveUtil {
      * @return a bitmask of possible squares where a sliding piece could move
      */
     public static long getMoveLine(long[] bitboards, long moveOrigin, int offset, boolean hardBlockerColour){
-        return generateMoveByOffset(offset, moveOrigin, BoardFunctions.calculateOccupiedByColour(bitboards, hardBlockerColour), BoardFunctions.calculateOccupiedByColour(bitboards, !hardBlockerColour), true);
+        long hardBlockers = BoardFunctions.calculateOccupiedByColour(bitboards, hardBlockerColour);
+        long occupancy = hardBlockers | BoardFunctions.calculateOccupiedByColour(bitboards, !hardBlockerColour);
+        return getMoveLine(moveOrigin, offset, hardBlockers, occupancy);
+    }
+
+    /**
+     * Gets a bitmask of the possible moves in a line from an origin square, on already known occupancy.
+     * @param moveOrigin index of the tile from where the move is starting
+     * @param offset offset of the move
+     * @param hardBlockers bitboard of the pieces which represent hard blockers
+     * @param occupancy bitboard of all occupied squares
+     * @return a bitmask of possible squares where a sliding piece could move
+     */
+    public static long getMoveLine(long moveOrigin, int offset, long hardBlockers, long occupancy){
+        boolean straight = offset == ChessBoardConstants.NORTH || offset == ChessBoardConstants.SOUTH || offset == ChessBoardConstants.EAST || offset == ChessBoardConstants.WEST;
+
+        long result = 0L;
+        while (moveOrigin != 0){
+            int square = Long.numberOfTrailingZeros(moveOrigin);
+            moveOrigin &= moveOrigin - 1;
+
+            long attacks = straight ? rookAttacks(square, occupancy) : bishopAttacks(square, occupancy);
+            result |= attacks & RAYS[offset + 9][square];
+        }
+
+        return result & ~hardBlockers;
     }
 
     /**
@@ -52,11 +241,22 @@ public class MoveUtil {
      * @return danger square bitboard
      */
     public static long getKingDangerSquares(long[] bitboards, boolean activeColour){
+        return getKingDangerSquares(bitboards, activeColour, BoardFunctions.calculateOccupiedAll(bitboards));
+    }
+
+    /**
+     * Returns squares that the king cannot move to for the received bitboards, on already known occupancy.
+     * @param bitboards bitboard representation of a chessboard
+     * @param activeColour determines the colour of the king
+     * @param occupancy bitboard of all occupied squares
+     * @return danger square bitboard
+     */
+    public static long getKingDangerSquares(long[] bitboards, boolean activeColour, long occupancy){
         if (activeColour == ChessConstants.WHITE){
-            return getKingDangerSquare(bitboards, ChessPieceConstants.BLACK_PIECES, ChessPiece.WHITE_KING);
+            return getKingDangerSquare(bitboards, ChessPieceConstants.BLACK_PIECES, ChessPiece.WHITE_KING, occupancy);
         }
         else {
-            return getKingDangerSquare(bitboards, ChessPieceConstants.WHITE_PIECES, ChessPiece.BLACK_KING);
+            return getKingDangerSquare(bitboards, ChessPieceConstants.WHITE_PIECES, ChessPiece.BLACK_KING, occupancy);
         }
     }
 
@@ -65,23 +265,24 @@ public class MoveUtil {
      * @param bitboards bitboard representation of a chessboard
      * @param attackers for which to generate danger squares
      * @param king king for which the squares are calculated
+     * @param occupancy bitboard of all occupied squares
      * @return danger square bitboard
      */
-    private static long getKingDangerSquare(long[] bitboards, List<ChessPiece> attackers, ChessPiece king){
-        //we have to remove the king from the board to calculate his danger squares
-        long kingBitboard = bitboards[king.getKey()];
-        bitboards[king.getKey()] = 0L;
+    private static long getKingDangerSquare(long[] bitboards, List<ChessPiece> attackers, ChessPiece king, long occupancy){
+        //the king is removed from the occupancy, so he can't hide behind himself on the line of a slider
+        occupancy &= ~bitboards[king.getKey()];
 
         long kingDangerSquares = 0L;
-        BlockerCalcFunc dangerSquareHardBlockers = o -> 0L;
-        BlockerCalcFunc dangerSquareSoftBlockers = o -> BoardFunctions.calculateOccupiedByColour(o, ChessConstants.WHITE) | BoardFunctions.calculateOccupiedByColour(o, ChessConstants.BLACK);
         for (ChessPiece attacker: attackers){
-            if (bitboards[attacker.getKey()] != 0L)
-                kingDangerSquares |= typeCaptures(bitboards, attacker, dangerSquareHardBlockers, dangerSquareSoftBlockers);
-        }
+            long attackerBitboard = bitboards[attacker.getKey()];
+            while (attackerBitboard != 0){
+                int square = Long.numberOfTrailingZeros(attackerBitboard);
+                attackerBitboard &= attackerBitboard - 1;
 
-        //returning the king to the bitboards
-        bitboards[king.getKey()] = kingBitboard;
+                //the first blocker of any colour is a danger square, the king can't capture a defended piece
+                kingDangerSquares |= attacker.isSliding() ? slidingAttacks(attacker, square, occupancy) : leaperAttacks(attacker, square);
+            }
+        }
 
         return kingDangerSquares;
     }
@@ -94,7 +295,7 @@ public class MoveUtil {
      * @return bitboard representation of legal piece pushes
      */
     public static long piecePushes(long[] bitboards, ChessPiece piece, long pieceBitboard){
-        return getMoves(bitboards, piece, pieceBitboard, BoardFunctions::calculateOccupiedAll, o -> 0, MoveOffsetGetters.PUSH_GETTER);
+        return getMoves(bitboards, piece, pieceBitboard, BoardFunctions::calculateOccupiedAll, o -> 0, true);
     }
 
     /**
@@ -106,7 +307,7 @@ public class MoveUtil {
      */
     public static long pieceCaptures(long[] bitboards, ChessPiece piece, long pieceBitboard){
         boolean friendlyColour = piece.getColour();
-        return getMoves(bitboards, piece, pieceBitboard, o -> BoardFunctions.calculateOccupiedByColour(o, friendlyColour), o -> BoardFunctions.calculateOccupiedByColour(o, !friendlyColour), MoveOffsetGetters.CAPTURE_GETTER);
+        return getMoves(bitboards, piece, pieceBitboard, o -> BoardFunctions.calculateOccupiedByColour(o, friendlyColour), o -> BoardFunctions.calculateOccupiedByColour(o, !friendlyColour), false);
     }
 
     /**
@@ -121,6 +322,11 @@ public class MoveUtil {
         if (piece.isPawn()){
             return piecePushes(bitboards, piece, pieceBitboard) | pieceCaptures(bitboards, piece, pieceBitboard);
         }
+        if (piece.isSliding()){
+            long friendlyPieces = BoardFunctions.calculateOccupiedByColour(bitboards, piece.getColour());
+            long occupancy = friendlyPieces | BoardFunctions.calculateOccupiedByColour(bitboards, !piece.getColour());
+            return slidingAttacks(piece, Long.numberOfTrailingZeros(pieceBitboard), occupancy) & ~friendlyPieces;
+        }
         return pieceCaptures(bitboards, piece, pieceBitboard);
     }
 
@@ -170,7 +376,7 @@ public class MoveUtil {
      * @return bitboard representation of legal piece type pushes
      */
     private static long typePushes(long[] bitboards, ChessPiece piece, BlockerCalcFunc hardBlockerCalcFunc, BlockerCalcFunc softBlockerCalcFunc){
-        return getMoves(bitboards, piece, bitboards[piece.getKey()], hardBlockerCalcFunc, softBlockerCalcFunc, MoveOffsetGetters.PUSH_GETTER);
+        return getMoves(bitboards, piece, bitboards[piece.getKey()], hardBlockerCalcFunc, softBlockerCalcFunc, true);
     }
 
     /**
@@ -182,7 +388,7 @@ public class MoveUtil {
      * @return bitboard representation of legal piece type captures
      */
     private static long typeCaptures(long[] bitboards, ChessPiece piece, BlockerCalcFunc hardBlockerCalcFunc, BlockerCalcFunc softBlockerCalcFunc){
-        return getMoves(bitboards, piece, bitboards[piece.getKey()], hardBlockerCalcFunc, softBlockerCalcFunc, MoveOffsetGetters.CAPTURE_GETTER);
+        return getMoves(bitboards, piece, bitboards[piece.getKey()], hardBlockerCalcFunc, softBlockerCalcFunc, false);
     }
 
     /**
@@ -192,94 +398,37 @@ public class MoveUtil {
      * @param piecesToMove bitboard of all pieces for which possible moves are being calculated
      * @param hardBlockerCalcFunc function which calculates hard blockers
      * @param softBlockerCalcFunc function which calculates soft blockers
-     * @param moveOffsetGetter function which gets movement offsets for the specific piece
+     * @param pushes true if pushes are generated, false for captures (only differs for pawns)
      * @return bitboard of all legal move squares
      */
-    private static long getMoves(long[] bitboards, ChessPiece piece, long piecesToMove, BlockerCalcFunc hardBlockerCalcFunc, BlockerCalcFunc softBlockerCalcFunc, MoveOffsetGetter moveOffsetGetter) {
+    private static long getMoves(long[] bitboards, ChessPiece piece, long piecesToMove, BlockerCalcFunc hardBlockerCalcFunc, BlockerCalcFunc softBlockerCalcFunc, boolean pushes) {
         long result = 0L;
 
         long hardBlockers = hardBlockerCalcFunc.calculateBlockers(bitboards);
         long softBlockers = softBlockerCalcFunc.calculateBlockers(bitboards);
+        long occupancy = hardBlockers | softBlockers;
 
-        for (int offset : moveOffsetGetter.getMoveOffset(piece)) {
-            result |= generateMoveByOffset(offset, piecesToMove, hardBlockers, softBlockers, piece.isSliding());
-        }
+        while (piecesToMove != 0){
+            int square = Long.numberOfTrailingZeros(piecesToMove);
+            piecesToMove &= piecesToMove - 1;
 
-        //generate double push for pawns
-        if (piece.isPawn() && moveOffsetGetter.getMoveOffset(piece).length == 1){
-            long pawnStartingRowMask = piece.getColour() == ChessConstants.WHITE ? ChessBoardConstants.RANK_2 : ChessBoardConstants.RANK_7;
-            LongUnaryOperator shift = piece.getColour() == ChessConstants.WHITE ? o -> o << ChessBoardConstants.NORTH : o -> o >>> ChessBoardConstants.NORTH;
-            while (piecesToMove != 0){
-                long singleAttackingPiece = Long.lowestOneBit(piecesToMove);
-                piecesToMove &= ~singleAttackingPiece;
-
-                if ((singleAttackingPiece & pawnStartingRowMask) != 0 && (shift.applyAsLong(singleAttackingPiece) & result) != 0){
-                    result |= shift.applyAsLong(shift.applyAsLong(singleAttackingPiece));
-                    result &= ~hardBlockers;
-                }
+            if (piece.isSliding()){
+                //a hard blocker stops the ray just as a soft one, it just can't be moved onto
+                result |= slidingAttacks(piece, square, occupancy);
             }
-        }
-
-        return result;
-    }
-
-    /**
-     * Function which directly calculates legal movements with various bitmasks
-     * @param moveOffset offset of the movement, in which direction to scan forward
-     * @param piecesToMove bitboard of pieces to be moved
-     * @param hardBlockers bitboard of hard blockers
-     * @param softBlockers bitboard of soft blockers
-     * @param isSliding is the move sliding (can it move any amount of squares in the direction of the offset)
-     * @return bitboard of possible moves
-     */
-    private static long generateMoveByOffset(int moveOffset, long piecesToMove, long hardBlockers, long softBlockers, boolean isSliding){
-        //applying necessary mask so that nothing overflows, can be replaced by a map, but performance may suffer
-        switch (moveOffset){
-            case ChessBoardConstants.NORTH_EAST, ChessBoardConstants.EAST, ChessBoardConstants.SOUTH_EAST -> {
-                softBlockers |= ChessBoardConstants.FILE_H;
-                softBlockers &= ~hardBlockers;
-                piecesToMove &= ~ChessBoardConstants.FILE_H;
+            else if (piece.isPawn() && pushes){
+                long push = pawnPushes(piece.getColour(), square) & ~hardBlockers;
+                //double push is only possible if the single push square is free
+                if (push != 0L){
+                    push |= pawnDoublePushes(piece.getColour(), square);
+                }
+                result |= push;
             }
-            case ChessBoardConstants.NORTH_WEST, ChessBoardConstants.WEST, ChessBoardConstants.SOUTH_WEST -> {
-                softBlockers |= ChessBoardConstants.FILE_A;
-                softBlockers &= ~hardBlockers;
-                piecesToMove &= ~ChessBoardConstants.FILE_A;
+            else {
+                result |= leaperAttacks(piece, square);
             }
-            case ChessBoardConstants.KNIGHT_NORTH_WEST -> piecesToMove = piecesToMove & ~ChessBoardConstants.NO_MOVE_KNIGHT_NORTH_WEST;
-            case ChessBoardConstants.KNIGHT_NORTH_EAST -> piecesToMove = piecesToMove & ~ChessBoardConstants.NO_MOVE_KNIGHT_NORTH_EAST;
-            case ChessBoardConstants.KNIGHT_EAST_NORTH -> piecesToMove = piecesToMove & ~ChessBoardConstants.NO_MOVE_KNIGHT_EAST_NORTH;
-            case ChessBoardConstants.KNIGHT_EAST_SOUTH -> piecesToMove = piecesToMove & ~ChessBoardConstants.NO_MOVE_KNIGHT_EAST_SOUTH;
-            case ChessBoardConstants.KNIGHT_SOUTH_EAST -> piecesToMove = piecesToMove & ~ChessBoardConstants.NO_MOVE_KNIGHT_SOUTH_EAST;
-            case ChessBoardConstants.KNIGHT_SOUTH_WEST -> piecesToMove = piecesToMove & ~ChessBoardConstants.NO_MOVE_KNIGHT_SOUTH_WEST;
-            case ChessBoardConstants.KNIGHT_WEST_SOUTH -> piecesToMove = piecesToMove & ~ChessBoardConstants.NO_MOVE_KNIGHT_WEST_SOUTH;
-            case ChessBoardConstants.KNIGHT_WEST_NORTH -> piecesToMove = piecesToMove & ~ChessBoardConstants.NO_MOVE_KNIGHT_WEST_NORTH;
-        }
-
-        //maybe optimise as two separate functions
-        LongUnaryOperator shift = moveOffset > 0 ? o -> o << moveOffset : o -> o >>> -moveOffset;
-
-        long hitSoftBlockers = 0L;
-        long attackedSquares = shift.applyAsLong(piecesToMove);
-        long attackedSquaresOld = 0L;
-
-        //if soft blockers were hit generate new hard blockers and mark hit soft blockers
-        hitSoftBlockers |= attackedSquares & softBlockers;
-        hardBlockers |= hitSoftBlockers;
-        //remove attack on hard blockers
-        attackedSquares &= ~(hardBlockers);
-
-        //continue for sliding pieces
-        while (isSliding && attackedSquaresOld != attackedSquares){
-            attackedSquaresOld = attackedSquares;
-            //move attacked squares in sliding direction
-            attackedSquares |= shift.applyAsLong(attackedSquares);
-            //if soft blockers were hit generate new hard blockers and mark hit soft blockers
-            hitSoftBlockers |= attackedSquares & softBlockers;
-            hardBlockers |= hitSoftBlockers;
-            //remove attack on hard blockers
-            attackedSquares &= ~(hardBlockers);
         }
 
-        return attackedSquares | hitSoftBlockers;
+        return result & ~hardBlockers;
     }
-}
\ No newline at end of file
+}
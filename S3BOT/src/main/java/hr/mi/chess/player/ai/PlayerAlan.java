@@ -36,12 +36,12 @@ public class PlayerAlan implements Player {
 
     /**
      * Constructor, tries to load the requested opening book with the specified decision style. See class
-     * <code>OpeningBook</code> for more. Sets transposition table size at 33554432.
+     * <code>OpeningBook</code> for more. Sets transposition table size at 8388608 entries (128 MB).
      * @param openingBookName name of the opening book
      * @param decisionStyle move choosing style
      */
     public PlayerAlan(String openingBookName, int decisionStyle){
-        this(openingBookName, decisionStyle, 33554432);
+        this(openingBookName, decisionStyle, 8388608);
     }
 
     /**
@@ -49,7 +49,7 @@ public class PlayerAlan implements Player {
      * <code>OpeningBook</code> for more.
      * @param openingBookName name of the opening book
      * @param decisionStyle move choosing style
-     * @param ttSize size of the transposition table
+     * @param ttSize number of transposition table entries, each takes 16 bytes
      */
     public PlayerAlan(String openingBookName, int decisionStyle, int ttSize){
         if (openingBookName != null){
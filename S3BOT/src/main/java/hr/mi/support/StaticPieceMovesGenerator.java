@@ -1,26 +1,197 @@
 package hr.mi.support;
 
+import hr.mi.chess.constants.ChessConstants;
 import hr.mi.chess.models.ChessPiece;
 
 import java.util.*;
 
 /**
- * Class encapsulating a small generator of bitmasks for various piece movements.
+ * Class encapsulating a small generator of bitmasks for various piece movements. The generated tables are loaded into
+ * the engine on class initialisation (see <code>ChessPieceConstants</code> and <code>MagicBitboards</code>), the main
+ * method only prints them. The magic numbers aren't generated on initialisation, the search for them takes a while, so
+ * they are hardcoded in <code>MagicBitboards</code> from the output of <code>main</code> with the "magics" argument.
  * @author Matej Istuk
  */
 public class StaticPieceMovesGenerator {
     /**
-     * Main method
-     * @param args ignored
+     * Main method, prints the king moves, or with the "magics" argument the rook and bishop magic numbers.
+     * @param args optionally "magics"
      */
     public static void main(String[] args) {
-        generateKingMoves();
+        if (args.length > 0 && args[0].equals("magics")) {
+            System.out.println("Rook magics:");
+            generateMagicNumbers(ChessPiece.WHITE_ROOK.getCaptureOffsets());
+            System.out.println();
+            System.out.println("Bishop magics:");
+            generateMagicNumbers(ChessPiece.WHITE_BISHOP.getCaptureOffsets());
+            System.out.println();
+            return;
+        }
+        Arrays.stream(generateKingMoves()).forEach(o -> System.out.printf("%dL, ", o));
+    }
+
+    /**
+     * Generates a bitmask of squares attacked by a sliding piece from the origin square, scanning each of the received
+     * offsets until the edge of the board or the first occupied square (which is included).
+     * @param square LERF index of the origin square
+     * @param occupancy bitboard of occupied squares
+     * @param offsets sliding offsets of the piece
+     * @return bitmask of attacked squares
+     */
+    public static long generateSlidingAttacks(int square, long occupancy, int[] offsets){
+        long attacks = 0L;
+        for (int offset: offsets){
+            int current = square;
+            while (isStepOnBoard(current, offset)){
+                current += offset;
+                attacks |= 1L << current;
+                if ((occupancy & (1L << current)) != 0){
+                    break;
+                }
+            }
+        }
+        return attacks;
+    }
+
+    /**
+     * Generates the mask of squares whose occupancy matters for a sliding piece on the origin square. The last square
+     * of every ray is left out, since a piece on it can't block anything.
+     * @param square LERF index of the origin square
+     * @param offsets sliding offsets of the piece
+     * @return relevant occupancy mask
+     */
+    public static long generateRelevantOccupancyMask(int square, int[] offsets){
+        long mask = 0L;
+        for (int offset: offsets){
+            int current = square;
+            while (isStepOnBoard(current, offset) && isStepOnBoard(current + offset, offset)){
+                current += offset;
+                mask |= 1L << current;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Checks if a single step by the offset from the square stays on the board (doesn't wrap around the edges).
+     * @param square LERF index of the square
+     * @param offset one square offset (one of the compass rose directions)
+     * @return true if the step stays on the board
+     */
+    private static boolean isStepOnBoard(int square, int offset){
+        int target = square + offset;
+        return target >= 0 && target < 64 && Math.abs((target % 8) - (square % 8)) <= 1;
+    }
+
+    /**
+     * Searches for magic numbers for every square and prints them, see <code>MagicBitboards</code>.
+     * @param offsets sliding offsets of the piece (rook or bishop)
+     */
+    private static void generateMagicNumbers(int[] offsets){
+        Random random = new Random(0x53B07L);
+        long[] magics = new long[64];
+        for (int square = 0; square < 64; square++){
+            long mask = generateRelevantOccupancyMask(square, offsets);
+            int bits = Long.bitCount(mask);
+            int size = 1 << bits;
+            long[] occupancies = new long[size];
+            long[] attacks = new long[size];
+
+            //enumerate all subsets of the mask (Carry-Rippler)
+            long subset = 0L;
+            for (int i = 0; i < size; i++){
+                occupancies[i] = subset;
+                attacks[i] = generateSlidingAttacks(square, subset, offsets);
+                subset = (subset - mask) & mask;
+            }
+
+            long[] used = new long[size];
+            boolean found = false;
+            while (!found){
+                long candidate = random.nextLong() & random.nextLong() & random.nextLong();
+                if (Long.bitCount((mask * candidate) & 0xFF00000000000000L) < 6){
+                    continue;
+                }
+
+                Arrays.fill(used, 0L);
+                found = true;
+                for (int i = 0; i < size && found; i++){
+                    int index = (int) ((occupancies[i] * candidate) >>> (64 - bits));
+                    if (used[index] == 0L){
+                        used[index] = attacks[i];
+                    }
+                    //attack sets always contain at least one square, so zero marks an unused slot
+                    else if (used[index] != attacks[i]){
+                        found = false;
+                    }
+                }
+                if (found){
+                    magics[square] = candidate;
+                }
+            }
+        }
+        Arrays.stream(magics).forEach(o -> System.out.printf("0x%016XL, ", o));
+    }
+
+    /**
+     * Generates pawn capture bitmask for each square on the board.
+     * @param colour colour of the pawn
+     * @return array of bitmasks indexed by the LERF index of the pawn
+     */
+    public static long[] generatePawnCaptures(boolean colour){
+        return generateStepMoves((colour == ChessConstants.WHITE ? ChessPiece.WHITE_PAWN : ChessPiece.BLACK_PAWN).getCaptureOffsets());
+    }
+
+    /**
+     * Generates single pawn push bitmask for each square on the board.
+     * @param colour colour of the pawn
+     * @return array of bitmasks indexed by the LERF index of the pawn
+     */
+    public static long[] generatePawnPushes(boolean colour){
+        return generateStepMoves((colour == ChessConstants.WHITE ? ChessPiece.WHITE_PAWN : ChessPiece.BLACK_PAWN).getPushOffsets());
+    }
+
+    /**
+     * Generates double pawn push bitmask for each square on the board, empty for squares outside the starting rank.
+     * @param colour colour of the pawn
+     * @return array of bitmasks indexed by the LERF index of the pawn
+     */
+    public static long[] generatePawnDoublePushes(boolean colour){
+        long[] moves = new long[64];
+        for (int i = 0; i < 64; i++){
+            if (colour == ChessConstants.WHITE && i / 8 == 1){
+                moves[i] = 1L << (i + 16);
+            }
+            if (colour == ChessConstants.BLACK && i / 8 == 6){
+                moves[i] = 1L << (i - 16);
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * Generates a bitmask of single steps by the received offsets for each square on the board, leaving out the steps
+     * which would leave the board or wrap around its edges.
+     * @param offsets one square offsets (compass rose directions)
+     * @return array of bitmasks indexed by the LERF index of the origin square
+     */
+    private static long[] generateStepMoves(int[] offsets){
+        long[] moves = new long[64];
+        for (int i = 0; i < 64; i++){
+            for (int offset: offsets){
+                if (isStepOnBoard(i, offset)){
+                    moves[i] |= 1L << (i + offset);
+                }
+            }
+        }
+        return moves;
     }
 
     /**
      * Generates knight move bitmask for each square on the board.
+     * @return array of bitmasks indexed by the LERF index of the knight
      */
-    private static void generateKnightMoves(){
+    public static long[] generateKnightMoves(){
         long[] moves = new long[64];
         for (int i = 0; i < 64; i++){
             Set<Integer> legalJumpSet = new HashSet<>();
@@ -75,13 +246,14 @@ public class StaticPieceMovesGenerator {
             }
             moves[i] = bitmask;
         }
-        Arrays.stream(moves).forEach(o -> System.out.printf("%dL, ", o));
+        return moves;
     }
 
     /**
      * Generates king move bitmask for each square on the board.
+     * @return array of bitmasks indexed by the LERF index of the king
      */
-    private static void generateKingMoves(){
+    public static long[] generateKingMoves(){
         long[] moves = new long[64];
         for (int i = 0; i < 64; i++){
             Set<Integer> legalMoveSet = new HashSet<>();
@@ -122,7 +294,7 @@ public class StaticPieceMovesGenerator {
             }
             moves[i] = bitmask;
         }
-        Arrays.stream(moves).forEach(o -> System.out.printf("%dL, ", o));
+        return moves;
     }
 
 }
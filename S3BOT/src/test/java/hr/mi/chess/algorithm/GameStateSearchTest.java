@@ -0,0 +1,84 @@
+package hr.mi.chess.algorithm;
+
+import hr.mi.chess.algorithm.support.Score;
+import hr.mi.chess.evaluation.SimplePlusEvaluationFunction;
+import hr.mi.chess.models.BoardState;
+import hr.mi.chess.models.Move;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameStateSearchTest {
+    private static final int TT_SIZE = 1 << 16;
+
+    @Test
+    void testMateIn1() {
+        GameStateSearch gameStateSearch = new GameStateSearch(new SimplePlusEvaluationFunction(), TT_SIZE);
+        Move move = gameStateSearch.getBestMove(new BoardState("6k1/5ppp/8/8/8/8/5PPP/3R2K1 w - - 0 1"), mateCondition(1));
+        assertEquals("d1d8", move.toString());
+        assertEquals(Score.mateIn(1), gameStateSearch.getScore());
+    }
+
+    @Test
+    void testMateIn2() {
+        GameStateSearch gameStateSearch = new GameStateSearch(new SimplePlusEvaluationFunction(), TT_SIZE);
+        Move move = gameStateSearch.getBestMove(new BoardState("kbK5/pp6/1P6/8/8/8/8/R7 w - - 0 1"), mateCondition(2));
+        assertEquals("a1a6", move.toString());
+        assertEquals(Score.mateIn(3), gameStateSearch.getScore());
+    }
+
+    @Test
+    void testMateIn2Sacrifice() {
+        GameStateSearch gameStateSearch = new GameStateSearch(new SimplePlusEvaluationFunction(), TT_SIZE);
+        Move move = gameStateSearch.getBestMove(new BoardState("r2qkb1r/pp2nppp/3p4/2pNN1B1/2BnP3/3P4/PPP2PPP/R2bK2R w KQkq - 1 1"),
+                mateCondition(2));
+        assertEquals("d5f6", move.toString());
+        assertEquals(Score.mateIn(3), gameStateSearch.getScore());
+    }
+
+    @Test
+    void testMateSearchStopsAtShorterMate() {
+        //a mate in 1 is also a mate in 3, the search ends once it is proven
+        GameStateSearch gameStateSearch = new GameStateSearch(new SimplePlusEvaluationFunction(), TT_SIZE);
+        Move move = gameStateSearch.getBestMove(new BoardState("6k1/5ppp/8/8/8/8/5PPP/3R2K1 w - - 0 1"), mateCondition(3));
+        assertEquals("d1d8", move.toString());
+        assertEquals(Score.mateIn(1), gameStateSearch.getScore());
+    }
+
+    @Test
+    void testNoMate() {
+        GameStateSearch gameStateSearch = new GameStateSearch(new SimplePlusEvaluationFunction(), TT_SIZE);
+        gameStateSearch.getBestMove(new BoardState("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1"), mateCondition(2));
+        assertFalse(Score.isMate(gameStateSearch.getScore()));
+    }
+
+    @Test
+    void testNewGameForgetsEarlierSearches() {
+        String fen = "r1bq1rk1/pp2bppp/2n1pn2/3p4/2PP4/2N1PN2/PP1B1PPP/R2QKB1R w KQ - 0 8";
+        GameStateSearch fresh = new GameStateSearch(new SimplePlusEvaluationFunction(), TT_SIZE);
+        Move freshMove = fresh.getBestMove(new BoardState(fen), depthCondition(6));
+
+        GameStateSearch reused = new GameStateSearch(new SimplePlusEvaluationFunction(), TT_SIZE);
+        //without the new game, the second search would start from the results of the first one
+        reused.getBestMove(new BoardState(fen), depthCondition(6));
+        reused.newGame();
+        Move reusedMove = reused.getBestMove(new BoardState(fen), depthCondition(6));
+
+        assertEquals(freshMove.toString(), reusedMove.toString());
+        assertEquals(fresh.getScore(), reused.getScore());
+        assertEquals(fresh.getNodesSearched(), reused.getNodesSearched());
+    }
+
+    private static SearchEndCondition depthCondition(int depth) {
+        SearchEndCondition searchEndCondition = new SearchEndCondition();
+        //the last iteration of the search is maxDepth - 1
+        searchEndCondition.setMaxDepth(depth + 1);
+        return searchEndCondition;
+    }
+
+    private static SearchEndCondition mateCondition(int mate) {
+        SearchEndCondition searchEndCondition = new SearchEndCondition();
+        searchEndCondition.setMate(mate);
+        return searchEndCondition;
+    }
+}
@@ -1,8 +1,11 @@
 package hr.mi.chess.algorithm;
 
+import hr.mi.chess.algorithm.support.PerftTable;
 import hr.mi.chess.models.BoardState;
 import org.junit.jupiter.api.Test;
 
+import java.util.Map;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class PerftTest {
@@ -257,4 +260,41 @@ class PerftTest {
         BoardState boardState = new BoardState();
         assertEquals(84998978956L, Perft.countMovesAtDepth(boardState, 8));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testParallel1(){
+        BoardState boardState = new BoardState("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        String fen = boardState.getFEN();
+        assertEquals(4085603, Perft.countMovesAtDepth(boardState, 4, 4));
+        assertEquals(fen, boardState.getFEN());
+    }
+
+    @Test
+    void testParallel2(){
+        BoardState boardState = new BoardState("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1");
+        assertEquals(674624, Perft.countMovesAtDepth(boardState, 5, 2));
+    }
+
+    @Test
+    void testDivide(){
+        BoardState boardState = new BoardState();
+        Map<String, Long> divide = Perft.divide(boardState, 3, 2);
+        assertEquals(20, divide.size());
+        assertEquals(600, divide.get("e2e4"));
+        assertEquals(440, divide.get("g1f3"));
+        assertEquals(8902, divide.values().stream().mapToLong(Long::longValue).sum());
+    }
+
+    @Test
+    void testHashed1(){
+        //a small table, so entries are replaced often
+        BoardState boardState = new BoardState("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        assertEquals(4085603, Perft.countMovesAtDepth(boardState, 4, new PerftTable(1)));
+    }
+
+    @Test
+    void testHashed2(){
+        BoardState boardState = new BoardState("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1");
+        assertEquals(11030083, Perft.countMovesAtDepth(boardState, 6, 2, new PerftTable(16)));
+    }
+}
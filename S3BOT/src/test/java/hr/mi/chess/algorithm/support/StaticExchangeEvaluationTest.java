@@ -0,0 +1,67 @@
+package hr.mi.chess.algorithm.support;
+
+import hr.mi.chess.constants.ChessConstants;
+import hr.mi.chess.models.BoardState;
+import hr.mi.chess.models.Move;
+import hr.mi.chess.movegen.LegalMoveGenerator;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StaticExchangeEvaluationTest {
+    private final int[] gain = new int[StaticExchangeEvaluation.MAX_EXCHANGE];
+
+    private int findMove(BoardState boardState, String moveString){
+        int[] moves = new int[ChessConstants.MAX_MOVES];
+        int moveCount = LegalMoveGenerator.generateMoves(boardState, moves);
+        for (int i = 0; i < moveCount; i++){
+            if (new Move(moves[i]).toString().equals(moveString)){
+                return moves[i];
+            }
+        }
+        throw new IllegalArgumentException(moveString);
+    }
+
+    @Test
+    void testUndefendedPiece(){
+        BoardState boardState = new BoardState("1k1r4/1pp4p/p7/4p3/8/P5P1/1PP4P/2K1R3 w - - 0 1");
+        assertEquals(100, StaticExchangeEvaluation.evaluate(boardState, findMove(boardState, "e1e5"), gain));
+    }
+
+    @Test
+    void testLongExchange(){
+        //knight takes pawn, the exchange ends with the knight lost for the pawn
+        BoardState boardState = new BoardState("1k1r3q/1ppn3p/p4b2/4p3/8/P2N2P1/1PP1R1BP/2K1Q3 w - - 0 1");
+        int move = findMove(boardState, "d3e5");
+        assertEquals(100 - 320, StaticExchangeEvaluation.evaluate(boardState, move, gain));
+        assertTrue(StaticExchangeEvaluation.isLosing(boardState, move, gain));
+    }
+
+    @Test
+    void testXRay(){
+        //the rook behind the capturing rook takes part in the exchange
+        BoardState boardState = new BoardState("3r2k1/8/8/3p4/8/8/3R4/3R2K1 w - - 0 1");
+        int move = findMove(boardState, "d2d5");
+        assertEquals(100, StaticExchangeEvaluation.evaluate(boardState, move, gain));
+        assertFalse(StaticExchangeEvaluation.isLosing(boardState, move, gain));
+    }
+
+    @Test
+    void testDefendedPawnByQueen(){
+        BoardState boardState = new BoardState("4k3/8/2p5/3p4/8/8/8/3QK3 w - - 0 1");
+        assertEquals(100 - 900, StaticExchangeEvaluation.evaluate(boardState, findMove(boardState, "d1d5"), gain));
+    }
+
+    @Test
+    void testEnPassant(){
+        BoardState boardState = new BoardState("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 1");
+        assertEquals(100, StaticExchangeEvaluation.evaluate(boardState, findMove(boardState, "e5d6"), gain));
+    }
+
+    @Test
+    void testKingCantRecaptureDefendedPiece(){
+        //the king can't take back on d2, the bishop is defended by the rook
+        BoardState boardState = new BoardState("3rk3/8/8/6b1/8/8/3P4/4K3 b - - 0 1");
+        assertEquals(100, StaticExchangeEvaluation.evaluate(boardState, findMove(boardState, "g5d2"), gain));
+    }
+}
@@ -0,0 +1,91 @@
+package hr.mi.chess.algorithm.support;
+
+import hr.mi.chess.models.BoardState;
+import hr.mi.chess.models.MoveEncoding;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TranspositionTableTest {
+    @Test
+    void testStoreAndProbe(){
+        TranspositionTable transpositionTable = new TranspositionTable(1024);
+        BoardState boardState = new BoardState("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        int move = MoveEncoding.encode(0, 35, 44, 4, 6);
+
+        assertEquals(0, transpositionTable.probe(boardState.getZobristHash()));
+        transpositionTable.newSearch();
+        transpositionTable.store(boardState.getZobristHash(), MoveEncoding.toShortMove(move), -1234, TranspositionTable.LOWER_BOUND, 7);
+
+        long entry = transpositionTable.probe(boardState.getZobristHash());
+        assertEquals(move, MoveEncoding.fromShortMove(TranspositionTable.getMove(entry), boardState));
+        assertEquals(-1234, TranspositionTable.getScore(entry));
+        assertEquals(TranspositionTable.LOWER_BOUND, TranspositionTable.getType(entry));
+        assertEquals(7, TranspositionTable.getDepth(entry));
+        assertEquals(1, TranspositionTable.getAge(entry));
+
+        //a different position in the same slot isn't returned
+        assertEquals(0, transpositionTable.probe(boardState.getZobristHash() ^ (1L << 40)));
+    }
+
+    @Test
+    void testReplacement(){
+        //a single bucket, every position goes into it
+        TranspositionTable transpositionTable = new TranspositionTable(4);
+        transpositionTable.newSearch();
+        for (int i = 1; i <= 4; i++) {
+            transpositionTable.store(i, 0, i * 10, TranspositionTable.EXACT, 10 - i);
+        }
+        //the same position replaces its own entry
+        transpositionTable.store(2L, 0, 25, TranspositionTable.EXACT, 2);
+        assertEquals(25, TranspositionTable.getScore(transpositionTable.probe(2L)));
+
+        //the bucket is full, the shallowest entry is replaced
+        transpositionTable.store(5L, 0, 50, TranspositionTable.EXACT, 5);
+        assertEquals(0, transpositionTable.probe(2L));
+        assertEquals(50, TranspositionTable.getScore(transpositionTable.probe(5L)));
+
+        //entries of earlier searches are still found, but the old ones are replaced before the shallower new ones
+        transpositionTable.newSearch();
+        transpositionTable.store(6L, 0, 60, TranspositionTable.EXACT, 3);
+        assertEquals(10, TranspositionTable.getScore(transpositionTable.probe(1L)));
+        assertEquals(0, transpositionTable.probe(5L));
+        transpositionTable.newSearch();
+        transpositionTable.store(7L, 0, 70, TranspositionTable.EXACT, 3);
+        assertEquals(0, transpositionTable.probe(4L));
+        assertEquals(60, TranspositionTable.getScore(transpositionTable.probe(6L)));
+    }
+
+    @Test
+    void testClear(){
+        TranspositionTable transpositionTable = new TranspositionTable(1024);
+        transpositionTable.newSearch();
+        transpositionTable.newSearch();
+        transpositionTable.store(1L, 0, 10, TranspositionTable.EXACT, 4);
+
+        transpositionTable.clear();
+        assertEquals(0, transpositionTable.probe(1L));
+
+        //the generation starts over
+        transpositionTable.newSearch();
+        transpositionTable.store(1L, 0, 10, TranspositionTable.EXACT, 4);
+        assertEquals(1, TranspositionTable.getAge(transpositionTable.probe(1L)));
+    }
+
+    @Test
+    void testMateScore(){
+        TranspositionTable transpositionTable = new TranspositionTable(1024);
+        transpositionTable.newSearch();
+
+        //mate 4 plies below a node at ply 5, the same node reached at ply 3 is mate 2 plies sooner
+        transpositionTable.store(1L, 0, Score.toTranspositionTable(Score.mateIn(9), 5), TranspositionTable.EXACT, 4);
+        assertEquals(Score.mateIn(7), Score.fromTranspositionTable(TranspositionTable.getScore(transpositionTable.probe(1L)), 3));
+
+        transpositionTable.store(2L, 0, Score.toTranspositionTable(Score.matedIn(6), 2), TranspositionTable.EXACT, 4);
+        assertEquals(Score.matedIn(10), Score.fromTranspositionTable(TranspositionTable.getScore(transpositionTable.probe(2L)), 6));
+
+        //ordinary scores aren't changed
+        transpositionTable.store(3L, 0, Score.toTranspositionTable(-150, 5), TranspositionTable.EXACT, 4);
+        assertEquals(-150, Score.fromTranspositionTable(TranspositionTable.getScore(transpositionTable.probe(3L)), 3));
+    }
+}
@@ -772,4 +772,68 @@ class BoardStateTest {
         boardState.makeMoves("b4c3", "a1a3");
         assertEquals(0x5c3f9b829b279560L, boardState.getZobristHash());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testDrawByRepetition() {
+        //knights jump out and back twice, the starting position appears for the third time
+        BoardState boardState = new BoardState();
+        boardState.makeMoves("g1f3", "g8f6", "f3g1", "f6g8", "g1f3", "g8f6", "f3g1");
+        assertFalse(boardState.isDraw());
+        boardState.makeMove("f6g8");
+        assertTrue(boardState.isDraw());
+        boardState.unmakeLastMove();
+        assertFalse(boardState.isDraw());
+    }
+
+    @Test
+    void testOccupancyAndMailbox() {
+        //castling, en passant, capture and promotion all move pieces in a different way
+        BoardState boardState = new BoardState("r3k2r/1P6/8/8/3pP3/8/8/R3K2R b KQkq e3 0 1");
+        boardState.makeMoves("d4e3", "e1c1", "e8g8", "b7a8q");
+
+        BoardState expected = new BoardState(boardState.getFEN());
+        assertEquals(expected.getOccupancy(true), boardState.getOccupancy(true));
+        assertEquals(expected.getOccupancy(false), boardState.getOccupancy(false));
+        assertEquals(expected.getOccupiedAll(), boardState.getOccupiedAll());
+        for (int square = 0; square < 64; square++) {
+            assertEquals(expected.getPieceOnSquare(square), boardState.getPieceOnSquare(square));
+        }
+        assertEquals(-1, boardState.getPieceOnSquare(27));
+        assertEquals(4, boardState.getPieceOnSquare(56));
+
+        for (int i = 0; i < 4; i++) {
+            boardState.unmakeLastMove();
+        }
+        expected = new BoardState("r3k2r/1P6/8/8/3pP3/8/8/R3K2R b KQkq e3 0 1");
+        assertEquals(expected.getOccupiedAll(), boardState.getOccupiedAll());
+        for (int square = 0; square < 64; square++) {
+            assertEquals(expected.getPieceOnSquare(square), boardState.getPieceOnSquare(square));
+        }
+    }
+
+    @Test
+    void testNullMove() {
+        String fen = "r3k2r/1P6/8/8/3pP3/8/8/R3K2R b KQkq e3 0 1";
+        BoardState boardState = new BoardState(fen);
+        boardState.makeNullMove();
+
+        //the side to move changes and the en passant target is gone, nothing else
+        BoardState expected = new BoardState("r3k2r/1P6/8/8/3pP3/8/8/R3K2R w KQkq - 1 2");
+        assertEquals(expected.getFEN(), boardState.getFEN());
+        assertEquals(expected.getZobristHash(), boardState.getZobristHash());
+
+        boardState.unmakeNullMove();
+        assertEquals(fen, boardState.getFEN());
+        assertEquals(new BoardState(fen).getZobristHash(), boardState.getZobristHash());
+        assertThrows(IllegalStateException.class, boardState::unmakeNullMove);
+
+        //positions before a null move don't count as repetitions
+        boardState = new BoardState("4k3/8/8/8/8/8/8/R3K3 w - - 0 1");
+        boardState.makeMoves("a1a2", "e8d8", "a2a1", "d8e8", "a1a2", "e8d8", "a2a1");
+        boardState.makeNullMove();
+        boardState.makeMoves("a1a2");
+        boardState.makeNullMove();
+        boardState.makeMoves("a2a1");
+        assertFalse(boardState.isDraw());
+    }
+}
@@ -1,10 +1,16 @@
 package hr.mi.chess.movegen;
 
 import hr.mi.chess.models.BoardState;
+import hr.mi.chess.constants.ChessConstants;
 import hr.mi.chess.models.Move;
+import hr.mi.chess.models.MoveEncoding;
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -76,4 +82,48 @@ class LegalMoveGeneratorTest {
         BoardState boardState = new BoardState("8/2p5/3p2k1/KP5r/5pP1/8/4P3/6R1 b - g3 0 3");
         List<Move> moves = LegalMoveGenerator.generateMoves(boardState);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testCapturesAndQuiets() {
+        //position with captures, en passant, promotions and castling, the split generators must cover all moves once
+        String[] fens = {
+                "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+                "8/2p5/3p4/KP5r/1R3pPk/8/4P3/8 b - g3 0 1",
+                "rnbqkbnr/ppp1pppp/8/1B1p4/4P3/8/PPPP1PPP/RNBQK1NR b KQkq - 1 2"
+        };
+        for (String fen: fens) {
+            BoardState boardState = new BoardState(fen);
+            int[] all = new int[ChessConstants.MAX_MOVES];
+            int[] captures = new int[ChessConstants.MAX_MOVES];
+            int[] quiets = new int[ChessConstants.MAX_MOVES];
+            int allCount = LegalMoveGenerator.generateMoves(boardState, all);
+            int captureCount = LegalMoveGenerator.generateCaptures(boardState, captures);
+            int quietCount = LegalMoveGenerator.generateQuiets(boardState, quiets);
+
+            Set<Integer> expectedCaptures = new HashSet<>();
+            Set<Integer> expectedQuiets = new HashSet<>();
+            for (int i = 0; i < allCount; i++) {
+                (MoveEncoding.isCapture(all[i]) ? expectedCaptures : expectedQuiets).add(all[i]);
+            }
+
+            assertEquals(expectedCaptures.size(), captureCount);
+            assertEquals(expectedQuiets.size(), quietCount);
+            assertEquals(expectedCaptures, Arrays.stream(captures, 0, captureCount).boxed().collect(Collectors.toSet()));
+            assertEquals(expectedQuiets, Arrays.stream(quiets, 0, quietCount).boxed().collect(Collectors.toSet()));
+        }
+    }
+
+    @Test
+    void testIsInCheck() {
+        assertFalse(LegalMoveGenerator.isInCheck(new BoardState()));
+        //bishop check
+        assertTrue(LegalMoveGenerator.isInCheck(new BoardState("rnbqkbnr/ppp1pppp/8/1B1p4/4P3/8/PPPP1PPP/RNBQK1NR b KQkq - 1 2")));
+        //knight check
+        assertTrue(LegalMoveGenerator.isInCheck(new BoardState("4k3/8/3N4/8/8/8/8/4K3 b - - 0 1")));
+        //pawn check
+        assertTrue(LegalMoveGenerator.isInCheck(new BoardState("4k3/8/8/8/8/8/3p4/4K3 w - - 0 1")));
+        //rook blocked by a pawn
+        assertFalse(LegalMoveGenerator.isInCheck(new BoardState("4k3/8/8/8/8/8/8/rP2K3 w - - 0 1")));
+    }
+}
@@ -3,8 +3,11 @@ package hr.mi.chess.movegen.helpers;
 import hr.mi.chess.models.BoardState;
 import hr.mi.chess.models.ChessPiece;
 import hr.mi.chess.constants.ChessConstants;
+import hr.mi.support.StaticPieceMovesGenerator;
 import org.junit.jupiter.api.Test;
 
+import java.util.Random;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class MoveUtilTest {
@@ -498,4 +501,41 @@ class MoveUtilTest {
         //System.out.println(MoveUtil.generateMovesForPiece(boardState.getBitboards(), ChessPiece.WHITE_ROOK, 0x1000000000L));
         assertEquals(1157443723186933760L, MoveUtil.piecePushes(boardState.getBitboards(), ChessPiece.WHITE_ROOK, 0x1000000000L));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testMagicRookAttacks(){
+        //rook on d4 blocked by pieces on d6, b4 and d2
+        long occupancy = (1L << 43) | (1L << 25) | (1L << 11);
+        assertEquals(0x00000808F6080800L, MoveUtil.rookAttacks(27, occupancy));
+    }
+
+    @Test
+    void testMagicBishopAttacks(){
+        //bishop on d4 blocked by pieces on f6 and b2
+        long occupancy = (1L << 45) | (1L << 9);
+        assertEquals(0x0001221400142240L, MoveUtil.bishopAttacks(27, occupancy));
+    }
+
+    @Test
+    void testMagicAttacksMatchRayScan(){
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++){
+            int square = random.nextInt(64);
+            long occupancy = random.nextLong() & random.nextLong();
+            assertEquals(StaticPieceMovesGenerator.generateSlidingAttacks(square, occupancy, ChessPiece.WHITE_ROOK.getCaptureOffsets()), MoveUtil.rookAttacks(square, occupancy));
+            assertEquals(StaticPieceMovesGenerator.generateSlidingAttacks(square, occupancy, ChessPiece.WHITE_BISHOP.getCaptureOffsets()), MoveUtil.bishopAttacks(square, occupancy));
+        }
+    }
+
+    @Test
+    void testAttacksTo(){
+        BoardState boardState = new BoardState("3r2k1/8/2n5/3p4/4P3/8/3R4/3R2K1 w - - 0 1");
+        long occupancy = boardState.getOccupiedAll();
+        //attackers of d5: the pawn on e4, the rook on d2 and the rook on d8, the knight on c6 doesn't reach it
+        assertEquals((1L << 28) | (1L << 11) | (1L << 59), MoveUtil.attacksTo(boardState.getBitboards(), 35, occupancy));
+        //with the d2 rook gone, the d1 rook behind it is discovered
+        assertEquals((1L << 28) | (1L << 3) | (1L << 59), MoveUtil.attacksTo(boardState.getBitboards(), 35, occupancy & ~(1L << 11)));
+        //the knight on c6 attacks e5
+        assertEquals(1L << 42, MoveUtil.attacksTo(boardState.getBitboards(), 36, occupancy) & (1L << 42));
+    }
+}